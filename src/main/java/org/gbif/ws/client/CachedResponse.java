@@ -0,0 +1,272 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import feign.Request;
+import feign.Response;
+
+/**
+ * Response stored by a {@link CachingClient}, with its freshness computed from the Cache-Control,
+ * Expires, Date and Age headers.
+ */
+public final class CachedResponse {
+
+  static final String CACHE_CONTROL = "Cache-Control";
+  static final String ETAG = "ETag";
+  static final String LAST_MODIFIED = "Last-Modified";
+  private static final String AGE = "Age";
+  private static final String AUTHORIZATION = "Authorization";
+  private static final String DATE = "Date";
+  private static final String EXPIRES = "Expires";
+
+  private final int status;
+  private final String reason;
+  private final Map<String, Collection<String>> headers;
+  private final byte[] body;
+  private final long responseTime;
+  private final long initialAge;
+  private final long freshnessLifetime;
+  private final long staleWhileRevalidate;
+  private final boolean mustRevalidate;
+  private final AtomicBoolean revalidating = new AtomicBoolean();
+
+  private CachedResponse(
+      int status,
+      String reason,
+      Map<String, Collection<String>> headers,
+      byte[] body,
+      long responseTime) {
+    this.status = status;
+    this.reason = reason;
+    this.headers = headers;
+    this.body = body;
+    this.responseTime = responseTime;
+
+    Map<String, String> cacheControl = parseCacheControl(headers);
+    this.initialAge = Math.max(0, parseLong(header(headers, AGE), 0) * 1000);
+    this.mustRevalidate =
+        cacheControl.containsKey("must-revalidate") || cacheControl.containsKey("no-cache");
+    this.staleWhileRevalidate = parseLong(cacheControl.get("stale-while-revalidate"), 0) * 1000;
+
+    if (cacheControl.containsKey("no-cache")) {
+      this.freshnessLifetime = 0;
+    } else if (cacheControl.containsKey("max-age")) {
+      this.freshnessLifetime = parseLong(cacheControl.get("max-age"), 0) * 1000;
+    } else if (header(headers, EXPIRES) != null) {
+      long date = parseDate(header(headers, DATE), responseTime);
+      this.freshnessLifetime = Math.max(0, parseDate(header(headers, EXPIRES), date) - date);
+    } else {
+      this.freshnessLifetime = 0;
+    }
+  }
+
+  /**
+   * Creates the cached copy of a response, null if the response must not be stored. Responses to
+   * requests with an Authorization header are only stored if they are public, as the cache is
+   * keyed by url.
+   *
+   * @param body the complete body of the response
+   * @param now time the response was received at, in epoch milliseconds
+   */
+  static CachedResponse of(Response response, byte[] body, long now) {
+    Map<String, Collection<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    headers.putAll(response.headers());
+    Map<String, String> cacheControl = parseCacheControl(headers);
+    if (response.status() != 200
+        || cacheControl.containsKey("no-store")
+        || headers.containsKey("Vary")) {
+      return null;
+    }
+    if (isAuthorized(response.request())
+        && !cacheControl.containsKey("public")
+        && !cacheControl.containsKey("s-maxage")) {
+      // the response may only be valid for these credentials
+      return null;
+    }
+    CachedResponse cached =
+        new CachedResponse(response.status(), response.reason(), headers, body, now);
+    // responses without freshness are only worth storing if they can be revalidated
+    return cached.freshnessLifetime > 0 || cached.isRevalidable() ? cached : null;
+  }
+
+  /**
+   * @return a copy of this response with the headers of the 304 response revalidating it
+   */
+  CachedResponse revalidated(Response notModified, long now) {
+    Map<String, Collection<String>> merged = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    merged.putAll(headers);
+    notModified.headers().forEach(
+        (name, values) -> {
+          if (!"Content-Length".equalsIgnoreCase(name)) {
+            merged.put(name, values);
+          }
+        });
+    return new CachedResponse(status, reason, merged, body, now);
+  }
+
+  /**
+   * @return the response to return for the request
+   */
+  Response toResponse(Request request, long now) {
+    Map<String, Collection<String>> responseHeaders = new HashMap<>(headers);
+    responseHeaders.put(AGE, Collections.singletonList(String.valueOf(age(now) / 1000)));
+    return Response.builder()
+        .status(status)
+        .reason(reason)
+        .request(request)
+        .headers(responseHeaders)
+        .body(body)
+        .build();
+  }
+
+  /**
+   * Conditional copy of the request, validating this response with its ETag or Last-Modified.
+   */
+  Request conditional(Request request) {
+    Map<String, Collection<String>> requestHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    requestHeaders.putAll(request.headers());
+    if (header(headers, ETAG) != null) {
+      requestHeaders.put("If-None-Match", Collections.singletonList(header(headers, ETAG)));
+    }
+    if (header(headers, LAST_MODIFIED) != null) {
+      requestHeaders.put(
+          "If-Modified-Since", Collections.singletonList(header(headers, LAST_MODIFIED)));
+    }
+    return Request.create(
+        request.httpMethod(),
+        request.url(),
+        requestHeaders,
+        request.body(),
+        request.charset(),
+        request.requestTemplate());
+  }
+
+  long age(long now) {
+    return initialAge + Math.max(0, now - responseTime);
+  }
+
+  boolean isFresh(long now) {
+    return age(now) < freshnessLifetime;
+  }
+
+  /**
+   * @return true if the stale response can be returned while it is revalidated in the background
+   */
+  boolean isStaleWhileRevalidate(long now) {
+    return age(now) < freshnessLifetime + staleWhileRevalidate;
+  }
+
+  boolean isRevalidable() {
+    return header(headers, ETAG) != null || header(headers, LAST_MODIFIED) != null;
+  }
+
+  /**
+   * @return true for the first caller, which must revalidate the response in the background
+   */
+  boolean startRevalidation() {
+    return revalidating.compareAndSet(false, true);
+  }
+
+  /**
+   * @return true if the response has a must-revalidate or no-cache directive, so it can't be
+   *     returned once stale
+   */
+  boolean isMustRevalidate() {
+    return mustRevalidate;
+  }
+
+  /**
+   * @return the approximate size in bytes of the response
+   */
+  public long size() {
+    long size = body.length;
+    for (Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+      for (String value : header.getValue()) {
+        size += header.getKey().length() + value.length();
+      }
+    }
+    return size;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public byte[] getBody() {
+    return body;
+  }
+
+  private static boolean isAuthorized(Request request) {
+    return request != null
+        && request.headers().keySet().stream().anyMatch(AUTHORIZATION::equalsIgnoreCase);
+  }
+
+  private static String header(Map<String, Collection<String>> headers, String name) {
+    Collection<String> values = headers.get(name);
+    return values != null && !values.isEmpty() ? values.iterator().next() : null;
+  }
+
+  private static Map<String, String> parseCacheControl(Map<String, Collection<String>> headers) {
+    Collection<String> values = headers.get(CACHE_CONTROL);
+    if (values == null) {
+      return Collections.emptyMap();
+    }
+    Map<String, String> directives = new HashMap<>();
+    for (String value : values) {
+      for (String directive : value.split(",")) {
+        int eq = directive.indexOf('=');
+        String name = (eq < 0 ? directive : directive.substring(0, eq)).trim();
+        String argument = eq < 0 ? null : directive.substring(eq + 1).trim().replace("\"", "");
+        if (!name.isEmpty()) {
+          directives.put(name.toLowerCase(Locale.ENGLISH), argument);
+        }
+      }
+    }
+    return directives;
+  }
+
+  private static long parseLong(String value, long defaultValue) {
+    try {
+      return value != null ? Long.parseLong(value.trim()) : defaultValue;
+    } catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+
+  /**
+   * @return the HTTP-date in epoch milliseconds, the invalid value if it can't be parsed
+   */
+  private static long parseDate(String value, long invalid) {
+    try {
+      return value != null
+          ? ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+              .toInstant()
+              .toEpochMilli()
+          : invalid;
+    } catch (DateTimeParseException e) {
+      return invalid;
+    }
+  }
+}
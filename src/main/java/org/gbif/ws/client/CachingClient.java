@@ -0,0 +1,255 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+/**
+ * Client caching the GET responses in a {@link HttpResponseCache}, as a private HTTP cache.
+ * <ul>
+ *   <li>200 responses are stored unless their Cache-Control is no-store or they have a Vary
+ *   header. Responses to requests with an Authorization header, e.g. signed by the GBIF scheme,
+ *   are only stored if they are public or have an s-maxage. Their freshness comes from the
+ *   Cache-Control max-age or the Expires header.</li>
+ *   <li>Fresh responses are returned without a request.</li>
+ *   <li>Stale responses are revalidated with If-None-Match and If-Modified-Since, a 304 response
+ *   refreshes the cached one.</li>
+ *   <li>Stale responses within their stale-while-revalidate period are returned at once and
+ *   revalidated in the background, unless they are must-revalidate or no-cache.</li>
+ *   <li>Requests with a Cache-Control no-cache or no-store header bypass the cache.</li>
+ * </ul>
+ * Bodies larger than the maximum body size are not cached.
+ */
+public class CachingClient implements Client {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CachingClient.class);
+
+  public static final int DEFAULT_MAX_BODY_SIZE = 1024 * 1024;
+
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+  // shared by the clients not given an executor, threads are created on demand
+  private static final ExecutorService DEFAULT_EXECUTOR =
+      Executors.newCachedThreadPool(
+          runnable -> {
+            Thread thread =
+                new Thread(runnable, "cache-revalidation-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final Client delegate;
+  private final HttpResponseCache cache;
+  private final int maxBodySize;
+  private final Executor executor;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder staleHits = new LongAdder();
+  private final LongAdder revalidated = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public CachingClient(Client delegate, HttpResponseCache cache) {
+    this(delegate, cache, DEFAULT_MAX_BODY_SIZE, DEFAULT_EXECUTOR);
+  }
+
+  public CachingClient(
+      Client delegate, HttpResponseCache cache, int maxBodySize, Executor executor) {
+    this.delegate = Objects.requireNonNull(delegate, "delegate shall be provided");
+    this.cache = Objects.requireNonNull(cache, "cache shall be provided");
+    this.maxBodySize = maxBodySize;
+    this.executor = Objects.requireNonNull(executor, "executor shall be provided");
+  }
+
+  @Override
+  public Response execute(Request request, Request.Options options) throws IOException {
+    if (request.httpMethod() != Request.HttpMethod.GET || bypassesCache(request)) {
+      return delegate.execute(request, options);
+    }
+
+    String key = request.url();
+    long now = currentTimeMillis();
+    CachedResponse cached = cache.get(key);
+    if (cached == null) {
+      misses.increment();
+      return store(key, delegate.execute(request, options));
+    }
+    if (cached.isFresh(now)) {
+      hits.increment();
+      return cached.toResponse(request, now);
+    }
+    if (!cached.isMustRevalidate() && cached.isStaleWhileRevalidate(now)) {
+      staleHits.increment();
+      if (cached.startRevalidation()) {
+        executor.execute(() -> revalidateInBackground(key, cached, request, options));
+      }
+      return cached.toResponse(request, now);
+    }
+    return revalidate(key, cached, request, options, true);
+  }
+
+  /**
+   * Validates the stale response with a conditional request, or requests it again if it has no
+   * validator.
+   *
+   * @param record false to leave the statistics unchanged, for background revalidations
+   */
+  private Response revalidate(
+      String key,
+      CachedResponse cached,
+      Request request,
+      Request.Options options,
+      boolean record)
+      throws IOException {
+    Response response =
+        delegate.execute(cached.isRevalidable() ? cached.conditional(request) : request, options);
+    if (response.status() == 304 && cached.isRevalidable()) {
+      if (record) {
+        revalidated.increment();
+      }
+      response.close();
+      long now = currentTimeMillis();
+      CachedResponse refreshed = cached.revalidated(response, now);
+      cache.put(key, refreshed);
+      return refreshed.toResponse(request, now);
+    }
+    if (record) {
+      misses.increment();
+    }
+    return store(key, response);
+  }
+
+  private void revalidateInBackground(
+      String key, CachedResponse cached, Request request, Request.Options options) {
+    try {
+      revalidate(key, cached, request, options, false).close();
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Could not revalidate the cached response of {}", key, e);
+      // lets a later request try again
+      cache.remove(key);
+    }
+  }
+
+  /**
+   * Stores the response if it can be cached.
+   *
+   * @return the response, with its body still readable
+   */
+  private Response store(String key, Response response) throws IOException {
+    if (response.status() != 200 || response.body() == null) {
+      if (response.status() != 304) {
+        cache.remove(key);
+      }
+      return response;
+    }
+
+    InputStream in = response.body().asInputStream();
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try {
+      byte[] chunk = new byte[8192];
+      int read;
+      while ((read = in.read(chunk)) != -1) {
+        buffer.write(chunk, 0, read);
+        if (buffer.size() > maxBodySize) {
+          // too large to cache, the rest of the body is streamed
+          cache.remove(key);
+          InputStream body =
+              new SequenceInputStream(new ByteArrayInputStream(buffer.toByteArray()), in);
+          return response.toBuilder().body(body, response.body().length()).build();
+        }
+      }
+      in.close();
+    } catch (IOException | RuntimeException e) {
+      in.close();
+      throw e;
+    }
+
+    byte[] body = buffer.toByteArray();
+    CachedResponse cached = CachedResponse.of(response, body, currentTimeMillis());
+    if (cached != null) {
+      cache.put(key, cached);
+    } else {
+      cache.remove(key);
+    }
+    return response.toBuilder().body(body).build();
+  }
+
+  private static boolean bypassesCache(Request request) {
+    return request.headers().entrySet().stream()
+        .filter(h -> CachedResponse.CACHE_CONTROL.equalsIgnoreCase(h.getKey()))
+        .flatMap(h -> h.getValue().stream())
+        .anyMatch(v -> v.contains("no-cache") || v.contains("no-store"));
+  }
+
+  protected long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+
+  /**
+   * @return the number of fresh responses returned from the cache
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * @return the number of stale responses returned while being revalidated in the background
+   */
+  public long getStaleHits() {
+    return staleHits.sum();
+  }
+
+  /**
+   * @return the number of cached responses revalidated by a 304 response
+   */
+  public long getRevalidated() {
+    return revalidated.sum();
+  }
+
+  /**
+   * @return the number of requests whose response wasn't cached or was modified
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * @return the share of the requests answered without downloading the response, NaN if none
+   */
+  public double getHitRate() {
+    long answered = getHits() + getStaleHits() + getRevalidated();
+    long total = answered + getMisses();
+    return total > 0 ? (double) answered / total : Double.NaN;
+  }
+
+  public HttpResponseCache getCache() {
+    return cache;
+  }
+}
@@ -0,0 +1,262 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import org.gbif.ws.WebApplicationException;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import feign.FeignException;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Circuit breaker failing the calls to a degraded service fast instead of waiting for its timeouts.
+ * <ul>
+ *   <li>CLOSED: calls are permitted, their outcomes are recorded in a sliding window of the last
+ *   {@code slidingWindowSize} calls. Once it has {@code minimumNumberOfCalls} outcomes, the breaker
+ *   opens if the failure or slow call rate reaches its threshold.</li>
+ *   <li>OPEN: calls are rejected with a {@link CircuitBreakerOpenException} during {@code
+ *   waitDurationInOpenState}, then the breaker is half-open.</li>
+ *   <li>HALF_OPEN: {@code permittedCallsInHalfOpenState} calls are permitted, the breaker closes
+ *   if their failure and slow call rates are below the thresholds and opens again otherwise.</li>
+ * </ul>
+ * The outcome of a call is recorded once the {@link ClientRetryer} gave up or succeeded, i.e. a
+ * call is a failure if all its retries failed.
+ */
+public class CircuitBreaker {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  /**
+   * Value returned instead of calling the service when the breaker is open or the call failed.
+   * For the methods returning a {@link java.util.concurrent.CompletableFuture}, it is also applied
+   * when the returned future fails, and may return a future or the value to complete it with.
+   */
+  @FunctionalInterface
+  public interface Fallback {
+
+    /**
+     * @param cause the {@link CircuitBreakerOpenException} or the failure of the call
+     * @return the result of the method, or throws an exception
+     */
+    Object apply(Method method, Object[] args, Throwable cause) throws Throwable;
+  }
+
+  /**
+   * Circuit breaker configuration, failures are I/O and server errors by default, see {@link
+   * #isServerFailure(Throwable)}.
+   */
+  @Data
+  @Builder
+  public static class Config {
+
+    /**
+     * One breaker per interface method instead of one per client.
+     */
+    @Builder.Default private boolean perMethod = false;
+
+    @Builder.Default private int slidingWindowSize = 50;
+    @Builder.Default private int minimumNumberOfCalls = 20;
+
+    /**
+     * Percentage of failed calls opening the breaker.
+     */
+    @Builder.Default private float failureRateThreshold = 50;
+
+    /**
+     * Calls taking longer are slow.
+     */
+    @Builder.Default private Duration slowCallDurationThreshold = Duration.ofSeconds(10);
+
+    /**
+     * Percentage of slow calls opening the breaker.
+     */
+    @Builder.Default private float slowCallRateThreshold = 100;
+
+    @Builder.Default private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+    @Builder.Default private int permittedCallsInHalfOpenState = 5;
+
+    @Builder.Default private Predicate<Throwable> recordFailure = CircuitBreaker::isServerFailure;
+  }
+
+  private final String name;
+  private final Config config;
+  private final LongSupplier nanoClock;
+
+  private State state = State.CLOSED;
+  private long openedAt;
+  private int halfOpenPermits;
+
+  // ring buffer of the outcomes of the last calls
+  private final boolean[] failures;
+  private final boolean[] slows;
+  private int next;
+  private int calls;
+  private int failureCount;
+  private int slowCount;
+
+  public CircuitBreaker(String name, Config config) {
+    this(name, config, System::nanoTime);
+  }
+
+  CircuitBreaker(String name, Config config, LongSupplier nanoClock) {
+    this.name = Objects.requireNonNull(name, "name shall be provided");
+    this.config = Objects.requireNonNull(config, "config shall be provided");
+    this.nanoClock = nanoClock;
+    validate(config);
+    this.failures = new boolean[config.getSlidingWindowSize()];
+    this.slows = new boolean[config.getSlidingWindowSize()];
+  }
+
+  private static void validate(Config config) {
+    int windowSize = config.getSlidingWindowSize();
+    if (windowSize <= 0) {
+      throw new IllegalArgumentException("slidingWindowSize must be positive");
+    }
+    if (config.getMinimumNumberOfCalls() <= 0 || config.getMinimumNumberOfCalls() > windowSize) {
+      throw new IllegalArgumentException(
+          "minimumNumberOfCalls must be between 1 and slidingWindowSize");
+    }
+    if (config.getPermittedCallsInHalfOpenState() <= 0
+        || config.getPermittedCallsInHalfOpenState() > windowSize) {
+      throw new IllegalArgumentException(
+          "permittedCallsInHalfOpenState must be between 1 and slidingWindowSize");
+    }
+    Objects.requireNonNull(
+        config.getSlowCallDurationThreshold(), "slowCallDurationThreshold shall be provided");
+    Objects.requireNonNull(
+        config.getWaitDurationInOpenState(), "waitDurationInOpenState shall be provided");
+    Objects.requireNonNull(config.getRecordFailure(), "recordFailure shall be provided");
+  }
+
+  /**
+   * Default failure predicate: I/O errors and server errors, as reported by the {@link
+   * ClientErrorDecoder} once all retries failed. 429 is back-pressure from a healthy server and
+   * 501 a missing feature, neither is a failure.
+   */
+  public static boolean isServerFailure(Throwable e) {
+    int status;
+    if (e instanceof FeignException) {
+      // -1 for I/O errors
+      status = ((FeignException) e).status();
+    } else if (e instanceof WebApplicationException
+        && ((WebApplicationException) e).getStatus() != null) {
+      status = ((WebApplicationException) e).getStatus();
+    } else {
+      return false;
+    }
+    return status == -1 || (status >= 500 && status != 501);
+  }
+
+  /**
+   * Acquires the permission to call the service.
+   *
+   * @throws CircuitBreakerOpenException if the call is not permitted
+   */
+  public synchronized void acquirePermission() {
+    if (state == State.OPEN) {
+      if (nanoClock.getAsLong() - openedAt < config.getWaitDurationInOpenState().toNanos()) {
+        throw new CircuitBreakerOpenException(name);
+      }
+      transition(State.HALF_OPEN);
+    }
+    if (state == State.HALF_OPEN) {
+      if (halfOpenPermits >= config.getPermittedCallsInHalfOpenState()) {
+        throw new CircuitBreakerOpenException(name);
+      }
+      halfOpenPermits++;
+    }
+  }
+
+  /**
+   * Records the outcome of a permitted call.
+   *
+   * @param durationNanos duration of the call
+   * @param error exception thrown by the call, null if it succeeded
+   */
+  public synchronized void onResult(long durationNanos, Throwable error) {
+    if (state == State.OPEN) {
+      // call permitted before the breaker opened
+      return;
+    }
+    boolean failure = error != null && config.getRecordFailure().test(error);
+    boolean slow = durationNanos >= config.getSlowCallDurationThreshold().toNanos();
+    record(failure, slow);
+
+    if (state == State.HALF_OPEN) {
+      if (calls >= config.getPermittedCallsInHalfOpenState()) {
+        transition(isAboveThresholds() ? State.OPEN : State.CLOSED);
+      }
+    } else if (calls >= config.getMinimumNumberOfCalls() && isAboveThresholds()) {
+      transition(State.OPEN);
+    }
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  Config getConfig() {
+    return config;
+  }
+
+  private void record(boolean failure, boolean slow) {
+    if (calls == failures.length) {
+      // overwrite the oldest outcome
+      failureCount -= failures[next] ? 1 : 0;
+      slowCount -= slows[next] ? 1 : 0;
+    } else {
+      calls++;
+    }
+    failures[next] = failure;
+    slows[next] = slow;
+    failureCount += failure ? 1 : 0;
+    slowCount += slow ? 1 : 0;
+    next = (next + 1) % failures.length;
+  }
+
+  private boolean isAboveThresholds() {
+    return failureCount * 100f / calls >= config.getFailureRateThreshold()
+        || slowCount * 100f / calls >= config.getSlowCallRateThreshold();
+  }
+
+  private void transition(State newState) {
+    LOG.info("Circuit breaker {} changed from {} to {}", name, state, newState);
+    state = newState;
+    openedAt = nanoClock.getAsLong();
+    halfOpenPermits = 0;
+    next = 0;
+    calls = 0;
+    failureCount = 0;
+    slowCount = 0;
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import feign.Feign;
+import feign.InvocationHandlerFactory;
+import feign.Target;
+import feign.Util;
+
+import static feign.Util.checkNotNull;
+
+/**
+ * Invocation handler factory guarding the method handlers with a {@link CircuitBreaker}, shared by
+ * all the methods of a client or one per method, before passing them to the delegate factory.
+ * <p>
+ * The asynchronous methods record their outcome when the returned future completes, and report
+ * an open breaker or a failure with a failed future, to which the fallback is applied.
+ */
+class CircuitBreakerInvocationHandlerFactory implements InvocationHandlerFactory {
+
+  private final InvocationHandlerFactory delegate;
+  private final CircuitBreaker.Config config;
+  private final CircuitBreaker.Fallback fallback;
+
+  CircuitBreakerInvocationHandlerFactory(
+      InvocationHandlerFactory delegate,
+      CircuitBreaker.Config config,
+      CircuitBreaker.Fallback fallback) {
+    this.delegate = checkNotNull(delegate, "delegate");
+    this.config = checkNotNull(config, "config");
+    this.fallback = fallback;
+  }
+
+  @Override
+  public InvocationHandler create(Target target, Map<Method, MethodHandler> dispatch) {
+    CircuitBreaker shared =
+        config.isPerMethod() ? null : new CircuitBreaker(target.type().getSimpleName(), config);
+
+    Map<Method, MethodHandler> guarded = new LinkedHashMap<>();
+    dispatch.forEach(
+        (method, handler) -> {
+          if (Util.isDefault(method)) {
+            // default methods call the guarded methods
+            guarded.put(method, handler);
+            return;
+          }
+          CircuitBreaker breaker =
+              shared != null
+                  ? shared
+                  : new CircuitBreaker(Feign.configKey(target.type(), method), config);
+          guarded.put(method, new GuardedMethodHandler(method, handler, breaker, fallback));
+        });
+    return delegate.create(target, guarded);
+  }
+
+  static class GuardedMethodHandler implements MethodHandler {
+
+    private final Method method;
+    private final MethodHandler delegate;
+    private final CircuitBreaker breaker;
+    private final CircuitBreaker.Fallback fallback;
+    private final boolean async;
+
+    GuardedMethodHandler(
+        Method method,
+        MethodHandler delegate,
+        CircuitBreaker breaker,
+        CircuitBreaker.Fallback fallback) {
+      this.method = method;
+      this.delegate = delegate;
+      this.breaker = breaker;
+      this.fallback = fallback;
+      this.async = CompletableFuture.class.isAssignableFrom(method.getReturnType());
+    }
+
+    @Override
+    public Object invoke(Object[] argv) throws Throwable {
+      try {
+        breaker.acquirePermission();
+      } catch (CircuitBreakerOpenException e) {
+        return async ? fallbackAsync(argv, e) : fallback(argv, e);
+      }
+
+      long start = System.nanoTime();
+      Object result;
+      try {
+        result = delegate.invoke(argv);
+      } catch (Throwable e) {
+        breaker.onResult(System.nanoTime() - start, e);
+        return async ? fallbackAsync(argv, e) : fallback(argv, e);
+      }
+
+      if (result instanceof CompletableFuture) {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Object> future =
+            ((CompletableFuture<Object>) result)
+                .whenComplete((r, e) -> breaker.onResult(System.nanoTime() - start, unwrap(e)));
+        return fallback != null
+            ? future.exceptionallyCompose(e -> fallbackAsync(argv, unwrap(e)))
+            : future;
+      }
+      breaker.onResult(System.nanoTime() - start, null);
+      return result;
+    }
+
+    private Object fallback(Object[] argv, Throwable cause) throws Throwable {
+      boolean handled =
+          cause instanceof CircuitBreakerOpenException
+              || breaker.getConfig().getRecordFailure().test(cause);
+      if (fallback == null || !handled) {
+        throw cause;
+      }
+      return fallback.apply(method, argv, cause);
+    }
+
+    /**
+     * Applies the fallback of an asynchronous method, the failures being returned as a failed
+     * future rather than thrown.
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Object> fallbackAsync(Object[] argv, Throwable cause) {
+      try {
+        Object result = fallback(argv, cause);
+        return result instanceof CompletableFuture
+            ? (CompletableFuture<Object>) result
+            : CompletableFuture.completedFuture(result);
+      } catch (Throwable e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+      return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+  }
+}
@@ -18,19 +18,17 @@ import org.gbif.ws.security.Md5EncodeServiceImpl;
 import org.gbif.ws.security.SecretKeySigningService;
 import org.gbif.ws.security.SigningService;
 
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.config.RequestConfig;
-import org.apache.http.config.ConnectionConfig;
-import org.apache.http.config.SocketConfig;
-import org.apache.http.impl.client.HttpClients;
-
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import feign.AsyncClient;
+import feign.AsyncFeign;
+import feign.BaseBuilder;
+import feign.Client;
 import feign.Contract;
 import feign.Feign;
 import feign.InvocationHandlerFactory;
@@ -41,13 +39,17 @@ import feign.codec.Decoder;
 import feign.codec.Encoder;
 import feign.codec.ErrorDecoder;
 import feign.form.spring.SpringFormEncoder;
+import feign.http2client.Http2Client;
 import feign.httpclient.ApacheHttpClient;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Builder;
 import lombok.Data;
 
 /**
  * ClientBuilder used to create Feign Clients.
  * This builders support retry using exponential backoff and multithreaded http client.
+ * Asynchronous clients returning {@link java.util.concurrent.CompletableFuture} can be created
+ * using {@link #buildAsync(Class)}.
  */
 @SuppressWarnings("unused")
 public class ClientBuilder {
@@ -62,13 +64,22 @@ public class ClientBuilder {
   private Decoder decoder;
   private Encoder encoder;
   private ConnectionPoolConfig connectionPoolConfig;
+  private ConnectionPoolRegistry connectionPoolRegistry = ConnectionPoolRegistry.getDefault();
+  private final List<Runnable> poolReleases = new ArrayList<>();
   private ObjectMapper objectMapper;
   private Retryer retryer;
+  private ClientRetryer.Jitter retryJitter;
+  private RetryBudget retryBudget;
   private boolean formEncoder;
 
   private Contract contract;
   private ErrorDecoder errorDecoder;
   private InvocationHandlerFactory invocationHandlerFactory;
+  private MeterRegistry meterRegistry;
+  private CircuitBreaker.Config circuitBreakerConfig;
+  private CircuitBreaker.Fallback circuitBreakerFallback;
+  private HedgingClient.Config hedgingConfig;
+  private HttpResponseCache responseCache;
 
   /**
    * Exponential backoff retryer with a default maximum wait between attempts.
@@ -90,6 +101,24 @@ public class ClientBuilder {
     return this;
   }
 
+  /**
+   * Randomises the intervals of the exponential backoff retryer so concurrent clients don't retry
+   * in lockstep.
+   */
+  public ClientBuilder withRetryJitter(ClientRetryer.Jitter retryJitter) {
+    this.retryJitter = retryJitter;
+    return this;
+  }
+
+  /**
+   * Limits the retries of the exponential backoff retryer to a fraction of the successful
+   * requests. The budget can be shared by several builders to limit the retries to a server.
+   */
+  public ClientBuilder withRetryBudget(RetryBudget retryBudget) {
+    this.retryBudget = retryBudget;
+    return this;
+  }
+
   /**
    * Target base url.
    */
@@ -128,6 +157,16 @@ public class ClientBuilder {
     return this;
   }
 
+  /**
+   * Registry providing the connection pool shared by the clients of the same host and
+   * {@link ConnectionPoolConfig}, {@link ConnectionPoolRegistry#getDefault()} if not set. Each
+   * built client holds a reference to its pool until {@link #releaseConnectionPools()}.
+   */
+  public ClientBuilder withConnectionPoolRegistry(ConnectionPoolRegistry connectionPoolRegistry) {
+    this.connectionPoolRegistry = connectionPoolRegistry;
+    return this;
+  }
+
   /**
    * Client connection timeout in milliseconds.
    */
@@ -179,64 +218,191 @@ public class ClientBuilder {
     return this;
   }
 
+  /**
+   * Registry to export the request, retry and connection pool metrics of the clients to, see
+   * {@link ClientMetrics}. Clients are not instrumented if not set.
+   */
+  public ClientBuilder withMeterRegistry(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    return this;
+  }
+
+  /**
+   * Fails the calls fast while the service is degraded, see {@link CircuitBreaker}.
+   */
+  public ClientBuilder withCircuitBreaker(CircuitBreaker.Config circuitBreakerConfig) {
+    return withCircuitBreaker(circuitBreakerConfig, null);
+  }
+
+  /**
+   * Fails the calls fast while the service is degraded, see {@link CircuitBreaker}. The fallback
+   * provides the result of the calls rejected by the breaker or failing.
+   */
+  public ClientBuilder withCircuitBreaker(
+      CircuitBreaker.Config circuitBreakerConfig, CircuitBreaker.Fallback circuitBreakerFallback) {
+    this.circuitBreakerConfig = circuitBreakerConfig;
+    this.circuitBreakerFallback = circuitBreakerFallback;
+    return this;
+  }
+
+  /**
+   * Hedges the GET requests of synchronous clients taking longer than a percentile of the recent
+   * latencies of their method, see {@link HedgingClient}.
+   */
+  public ClientBuilder withHedging(HedgingClient.Config hedgingConfig) {
+    this.hedgingConfig = hedgingConfig;
+    return this;
+  }
+
+  /**
+   * Caches the GET responses of synchronous clients according to their Cache-Control, Expires,
+   * ETag and Last-Modified headers, see {@link CachingClient}.
+   */
+  public ClientBuilder withResponseCache(HttpResponseCache responseCache) {
+    this.responseCache = responseCache;
+    return this;
+  }
+
   /**
    * Creates a new client instance.
    */
   public <T> T build(Class<T> clazz) {
-    Feign.Builder builder =
-        Feign.builder()
-            .encoder(formEncoder ? new SpringFormEncoder(encoder) : encoder)
-            .decoder(decoder)
-            .errorDecoder(errorDecoder != null ? errorDecoder : new ClientErrorDecoder())
-            .contract(contract != null ? contract : ClientContract.withDefaultProcessors())
-            .options(
-                new Request.Options(
-                    connectTimeoutMillis,
-                    TimeUnit.MILLISECONDS,
-                    readTimeoutMillis,
-                    TimeUnit.MILLISECONDS,
-                    true))
-            .decode404()
-            .invocationHandlerFactory(
-                invocationHandlerFactory != null
-                    ? invocationHandlerFactory
-                    : new ClientInvocationHandlerFactory());
-
-    if (retryer != null) {
-      builder.retryer(retryer);
+    ClientMetrics metrics = newClientMetrics(clazz);
+    Feign.Builder builder = configure(Feign.builder(), metrics);
+
+    Client client = new Client.Default(null, null);
+    if (connectionPoolConfig != null) {
+      String poolUrl = url;
+      ConnectionPoolConfig poolConfig = connectionPoolConfig;
+      ConnectionPoolRegistry registry = connectionPoolRegistry;
+      client = new ApacheHttpClient(registry.acquire(poolUrl, poolConfig));
+      synchronized (poolReleases) {
+        poolReleases.add(() -> registry.release(poolUrl, poolConfig));
+      }
+      if (metrics != null) {
+        metrics.bindPool(() -> registry.getPoolStats(poolUrl, poolConfig));
+      }
+    }
+    if (hedgingConfig != null) {
+      client = new HedgingClient(client, hedgingConfig);
     }
+    if (metrics != null) {
+      client = new MeteredClient(client, metrics);
+    }
+    if (retryBudget != null) {
+      client = retryBudget.track(client);
+    }
+    if (responseCache != null) {
+      CachingClient cachingClient = new CachingClient(client, responseCache);
+      if (metrics != null) {
+        metrics.bindCache(cachingClient);
+      }
+      client = cachingClient;
+    }
+    builder.client(client);
 
-    if (requestInterceptor != null) {
-      builder.requestInterceptor(requestInterceptor);
+    return builder.target(clazz, url);
+  }
+
+  /**
+   * Releases the references to the shared connection pools taken by the clients built so far,
+   * closing the pools no other client uses. These clients must not be used afterwards. Pools not
+   * released are closed when the JVM stops.
+   */
+  public void releaseConnectionPools() {
+    List<Runnable> releases;
+    synchronized (poolReleases) {
+      releases = new ArrayList<>(poolReleases);
+      poolReleases.clear();
     }
+    releases.forEach(Runnable::run);
+  }
 
-    if (connectionPoolConfig != null) {
-      builder.client(new ApacheHttpClient(newMultithreadedClient(connectionPoolConfig)));
+  /**
+   * Creates a new asynchronous client instance.
+   * Interface methods can return a {@link java.util.concurrent.CompletableFuture}, those requests
+   * are executed using the non-blocking JDK HttpClient so no thread is held while waiting for the
+   * response. Methods with any other return type block until the response is decoded.
+   * The JDK HttpClient keeps its own connection pool, the {@link ConnectionPoolConfig} is not used.
+   */
+  public <T> T buildAsync(Class<T> clazz) {
+    ClientMetrics metrics = newClientMetrics(clazz);
+    AsyncFeign.AsyncBuilder<Object> builder = configure(AsyncFeign.builder(), metrics);
+    AsyncClient<Object> client = new Http2Client(newRequestOptions());
+    if (metrics != null) {
+      client = new MeteredClient.Async<>(client, metrics);
     }
+    if (retryBudget != null) {
+      client = retryBudget.track(client);
+    }
+    builder.client(client);
 
     return builder.target(clazz, url);
   }
 
   /**
-   * Creates a Http multithreaded client.
+   * Applies the common settings of synchronous and asynchronous clients.
    */
-  private static HttpClient newMultithreadedClient(ConnectionPoolConfig connectionPoolConfig) {
+  private <B extends BaseBuilder<B, ?>> B configure(B builder, ClientMetrics metrics) {
+    builder
+        .encoder(formEncoder ? new SpringFormEncoder(encoder) : encoder)
+        .decoder(decoder)
+        .errorDecoder(errorDecoder != null ? errorDecoder : new ClientErrorDecoder())
+        .contract(contract != null ? contract : ClientContract.withDefaultProcessors())
+        .options(newRequestOptions())
+        .decode404();
+
+    InvocationHandlerFactory handlerFactory =
+        invocationHandlerFactory != null
+            ? invocationHandlerFactory
+            : new ClientInvocationHandlerFactory();
+    if (circuitBreakerConfig != null) {
+      handlerFactory =
+          new CircuitBreakerInvocationHandlerFactory(
+              handlerFactory, circuitBreakerConfig, circuitBreakerFallback);
+    }
+    builder.invocationHandlerFactory(handlerFactory);
+
+    if (decoder instanceof ClientDecoder) {
+      // the decoder closes the responses, except those it returns as streams
+      builder.doNotCloseAfterDecode();
+    }
 
-    return HttpClients.custom()
-        .setMaxConnTotal(connectionPoolConfig.getMaxConnections())
-        .setMaxConnPerRoute(connectionPoolConfig.getMaxPerRoute())
-        .setDefaultSocketConfig(
-            SocketConfig.custom().setSoTimeout(connectionPoolConfig.getTimeout()).build())
-        .setDefaultConnectionConfig(
-            ConnectionConfig.custom()
-                .setCharset(Charset.forName(StandardCharsets.UTF_8.name()))
-                .build())
-        .setDefaultRequestConfig(
-            RequestConfig.custom()
-                .setConnectTimeout(connectionPoolConfig.getTimeout())
-                .setConnectionRequestTimeout(connectionPoolConfig.getTimeout())
-                .build())
-        .build();
+    if (retryer instanceof ClientRetryer) {
+      // only the settings given to this builder change the retryer
+      ClientRetryer clientRetryer = (ClientRetryer) retryer;
+      if (retryJitter != null) {
+        clientRetryer = clientRetryer.withJitter(retryJitter);
+      }
+      if (retryBudget != null) {
+        clientRetryer = clientRetryer.withRetryBudget(retryBudget);
+      }
+      if (metrics != null) {
+        clientRetryer = clientRetryer.withRetryListener(metrics::recordRetry);
+      }
+      builder.retryer(clientRetryer);
+    } else if (retryer != null) {
+      builder.retryer(retryer);
+    }
+
+    if (requestInterceptor != null) {
+      builder.requestInterceptor(requestInterceptor);
+    }
+
+    return builder;
+  }
+
+  private ClientMetrics newClientMetrics(Class<?> clazz) {
+    return meterRegistry != null ? new ClientMetrics(meterRegistry, clazz.getSimpleName()) : null;
+  }
+
+  private Request.Options newRequestOptions() {
+    return new Request.Options(
+        connectTimeoutMillis,
+        TimeUnit.MILLISECONDS,
+        readTimeoutMillis,
+        TimeUnit.MILLISECONDS,
+        true);
   }
 
   @Data
@@ -245,5 +411,21 @@ public class ClientBuilder {
     private final Integer timeout;
     private final Integer maxConnections;
     private final Integer maxPerRoute;
+
+    /**
+     * Idle time in milliseconds after which pooled connections are evicted, no eviction if null.
+     */
+    private final Long idleTimeout;
+
+    /**
+     * Maximum life time in milliseconds of pooled connections, unlimited if null.
+     */
+    private final Long timeToLive;
+
+    /**
+     * Inactivity in milliseconds after which pooled connections are validated before being reused,
+     * default of the connection manager if null.
+     */
+    private final Integer validateAfterInactivity;
   }
 }
@@ -13,15 +13,29 @@
  */
 package org.gbif.ws.client;
 
+import java.io.Closeable;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.util.StringUtils;
 
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import feign.FeignException;
@@ -31,36 +45,129 @@ import feign.codec.DecodeException;
 import feign.codec.Decoder;
 import feign.jackson.JacksonDecoder;
 
+/**
+ * Decodes JSON, plain text and binary responses.
+ * <p>
+ * Besides regular types, methods can return:
+ *
+ * <ul>
+ *   <li>{@link InputStream}: the response body, not buffered. Closing it releases the connection.
+ *   <li>{@link Stream} or {@link Iterator} of a type: the elements of a JSON array response,
+ *       parsed one by one while they are consumed. The stream must be closed, the iterator must be
+ *       consumed fully or closed (it is {@link Closeable}), to release the connection.
+ *   <li>{@link Path}: the response body written to a new temporary file, which the caller has to
+ *       delete.
+ * </ul>
+ *
+ * The streaming types require the client not to close the response after decoding, see
+ * {@link feign.Feign.Builder#doNotCloseAfterDecode()}. {@link ClientBuilder} does that when using
+ * this decoder, the decoder closes the response of all the other types itself.
+ */
 public class ClientDecoder implements Decoder {
 
+  private final ObjectMapper objectMapper;
   private final JacksonDecoder jacksonDecoder;
 
   public ClientDecoder(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
     this.jacksonDecoder = new JacksonDecoder(objectMapper);
   }
 
   @Override
   public Object decode(Response response, Type type) throws IOException, FeignException {
-    HttpStatus responseStatus = HttpStatus.resolve(response.status());
+    boolean streaming = false;
+    try {
+      HttpStatus responseStatus = HttpStatus.resolve(response.status());
+
+      if (responseStatus == HttpStatus.NOT_FOUND || responseStatus == HttpStatus.NO_CONTENT) {
+        return null;
+      } else if (responseStatus != null && responseStatus.isError()) {
+        throw new DecodeException(response.status(), response.toString(), response.request());
+      }
+
+      Class<?> rawType = rawType(type);
+      if (InputStream.class.equals(rawType)) {
+        Object body = response.body() != null ? new ResponseInputStream(response) : null;
+        streaming = body != null;
+        return body;
+      } else if (Path.class.equals(rawType)) {
+        return toTemporaryFile(response);
+      }
 
-    if (responseStatus == HttpStatus.NOT_FOUND || responseStatus == HttpStatus.NO_CONTENT) {
+      MediaType contentType = getContentType(response);
+      if (MediaType.APPLICATION_JSON.equalsTypeAndSubtype(contentType)) {
+        if (Stream.class.equals(rawType) || Iterator.class.equals(rawType)) {
+          Object elements = readElements(response, type, rawType);
+          streaming = elements != null;
+          return elements;
+        }
+        return jacksonDecoder.decode(response, type);
+      } else if (MediaType.TEXT_PLAIN.equalsTypeAndSubtype(contentType)) {
+        return Util.toString(response.body().asReader(StandardCharsets.UTF_8));
+      } else if (MediaType.APPLICATION_OCTET_STREAM.equalsTypeAndSubtype(contentType)) {
+        return Util.toByteArray(response.body().asInputStream());
+      } else if (byte[].class.equals(type)) {
+        return Util.toByteArray(response.body().asInputStream());
+      } else {
+        throw new DecodeException(
+            response.status(), "Unsupported response type", response.request());
+      }
+    } finally {
+      if (!streaming) {
+        Util.ensureClosed(response);
+      }
+    }
+  }
+
+  /**
+   * Parses the elements of a JSON array response incrementally, a single JSON object being read as
+   * a one element sequence.
+   */
+  private Object readElements(Response response, Type type, Class<?> rawType) throws IOException {
+    if (response.body() == null) {
       return null;
-    } else if (responseStatus != null && responseStatus.isError()) {
-      throw new DecodeException(response.status(), response.toString(), response.request());
     }
+    if (!(type instanceof ParameterizedType)) {
+      throw new DecodeException(
+          response.status(), "Element type of " + type + " is unknown", response.request());
+    }
+    Type elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+
+    // the elements of a root level array are read one at a time
+    MappingIterator<Object> iterator =
+        objectMapper
+            .readerFor(objectMapper.constructType(elementType))
+            .readValues(response.body().asInputStream());
+    ClosingIterator<Object> elements = new ClosingIterator<>(iterator, response);
+
+    if (Iterator.class.equals(rawType)) {
+      return elements;
+    }
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(elements, Spliterator.ORDERED), false)
+        .onClose(elements::close);
+  }
 
-    MediaType contentType = getContentType(response);
-    if (MediaType.APPLICATION_JSON.equalsTypeAndSubtype(contentType)) {
-      return jacksonDecoder.decode(response, type);
-    } else if (MediaType.TEXT_PLAIN.equalsTypeAndSubtype(contentType)) {
-      return Util.toString(response.body().asReader(StandardCharsets.UTF_8));
-    } else if (MediaType.APPLICATION_OCTET_STREAM.equalsTypeAndSubtype(contentType)) {
-      return Util.toByteArray(response.body().asInputStream());
-    } else if (byte[].class.equals(type)) {
-      return Util.toByteArray(response.body().asInputStream());
-    } else {
-      throw new DecodeException(response.status(), "Unsupported response type", response.request());
+  private static Path toTemporaryFile(Response response) throws IOException {
+    Path file = Files.createTempFile("gbif-response-", ".tmp");
+    if (response.body() != null) {
+      try (InputStream in = response.body().asInputStream()) {
+        Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+      } catch (IOException | RuntimeException e) {
+        Files.deleteIfExists(file);
+        throw e;
+      }
     }
+    return file;
+  }
+
+  private static Class<?> rawType(Type type) {
+    if (type instanceof Class) {
+      return (Class<?>) type;
+    } else if (type instanceof ParameterizedType) {
+      return rawType(((ParameterizedType) type).getRawType());
+    }
+    return Object.class;
   }
 
   /**
@@ -73,4 +180,81 @@ public class ClientDecoder implements Decoder {
         .map(MediaType::parseMediaType)
         .orElse(null);
   }
+
+  /**
+   * Response body closing the response when closed.
+   */
+  private static class ResponseInputStream extends FilterInputStream {
+
+    private final Response response;
+
+    ResponseInputStream(Response response) throws IOException {
+      super(response.body().asInputStream());
+      this.response = response;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        response.close();
+      }
+    }
+  }
+
+  /**
+   * Iterator closing the parser and the response once all the elements have been read.
+   */
+  private static class ClosingIterator<E> implements Iterator<E>, Closeable {
+
+    private final MappingIterator<E> iterator;
+    private final Response response;
+    private boolean closed;
+
+    ClosingIterator(MappingIterator<E> iterator, Response response) {
+      this.iterator = iterator;
+      this.response = response;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (closed) {
+        return false;
+      }
+      boolean hasNext;
+      try {
+        hasNext = iterator.hasNext();
+      } catch (RuntimeException e) {
+        close();
+        throw e;
+      }
+      if (!hasNext) {
+        close();
+      }
+      return hasNext;
+    }
+
+    @Override
+    public E next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return iterator.next();
+    }
+
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        try {
+          iterator.close();
+        } catch (IOException e) {
+          // the response is closed anyway
+        } finally {
+          response.close();
+        }
+      }
+    }
+  }
 }
@@ -15,26 +15,53 @@ package org.gbif.ws.client;
 
 import org.gbif.ws.MethodNotAllowedException;
 import org.gbif.ws.NotFoundException;
+import org.gbif.ws.WebApplicationException;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
 
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.access.AccessDeniedException;
 
+import feign.Request;
 import feign.Response;
 import feign.RetryableException;
 import feign.codec.ErrorDecoder;
 import jakarta.validation.ValidationException;
 
+/**
+ * Maps error responses to exceptions.
+ * <p>
+ * 429 and 500 responses are retryable, as well as the 502, 503 and 504 responses of idempotent
+ * methods. Other unexpected statuses are reported as a {@link WebApplicationException} with the
+ * status of the response. The Retry-After header of a retryable response, in seconds or as an
+ * HTTP-date, sets when the {@link ClientRetryer} retries the request.
+ */
 public class ClientErrorDecoder implements ErrorDecoder {
 
   private static final Logger LOG = LoggerFactory.getLogger(ClientErrorDecoder.class);
 
+  private static final String RETRY_AFTER = "Retry-After";
+
+  private static final Set<Request.HttpMethod> IDEMPOTENT_METHODS =
+      EnumSet.of(
+          Request.HttpMethod.GET,
+          Request.HttpMethod.HEAD,
+          Request.HttpMethod.OPTIONS,
+          Request.HttpMethod.TRACE,
+          Request.HttpMethod.PUT,
+          Request.HttpMethod.DELETE);
+
   @Override
   public Exception decode(String methodKey, Response response) {
     String message = null;
@@ -65,27 +92,72 @@ public class ClientErrorDecoder implements ErrorDecoder {
             ? new ValidationException(extractValidationErrorMessage(message))
             : new ValidationException();
       case 429:
-        return new RetryableException(
-            response.status(),
-            "Too many requests, please try again later",
-            response.request().httpMethod(),
-            (Long) null,
-            response.request());
+        return retryable(response, "Too many requests, please try again later");
       case 500:
-        return new RetryableException(
-            response.status(),
-            "An internal server error occurred, please try again later",
-            response.request().httpMethod(),
-            (Long) null,
-            response.request());
+        return retryable(response, "An internal server error occurred, please try again later");
       case 501:
         return new UnsupportedOperationException(
             message != null ? message : "Method not implement yet");
+      case 502:
+      case 503:
+      case 504:
+        if (isIdempotent(response.request().httpMethod())) {
+          return retryable(response, "The service is unavailable, please try again later");
+        }
+        return new WebApplicationException(
+            message != null ? message : "Service unavailable", response.status());
       default:
-        return new RuntimeException(message != null ? message : "Unexpected exception");
+        return new WebApplicationException(
+            message != null ? message : "Unexpected exception", response.status());
     }
   }
 
+  /**
+   * @return true if repeating a request of the method has the same effect as sending it once
+   */
+  public static boolean isIdempotent(Request.HttpMethod method) {
+    return IDEMPOTENT_METHODS.contains(method);
+  }
+
+  private RetryableException retryable(Response response, String message) {
+    return new RetryableException(
+        response.status(),
+        message,
+        response.request().httpMethod(),
+        retryAfter(response),
+        response.request());
+  }
+
+  /**
+   * Parses the Retry-After header, a number of seconds or an HTTP-date.
+   *
+   * @return the time to retry at in epoch milliseconds, null if absent or invalid
+   */
+  Long retryAfter(Response response) {
+    // Feign response headers are case insensitive
+    Collection<String> values = response.headers().get(RETRY_AFTER);
+    if (values == null || values.isEmpty()) {
+      return null;
+    }
+
+    String value = values.iterator().next().trim();
+    try {
+      if (value.chars().allMatch(Character::isDigit)) {
+        return currentTimeMillis() + Long.parseLong(value) * 1000;
+      }
+      return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)
+          .toInstant()
+          .toEpochMilli();
+    } catch (NumberFormatException | DateTimeParseException e) {
+      LOG.debug("Invalid Retry-After header {}", value);
+      return null;
+    }
+  }
+
+  protected long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+
   private String extractValidationErrorMessage(String message) {
     return message.replace("<ul><li>", "").replace("</li></ul>", "").replace("<li></li>", ", ");
   }
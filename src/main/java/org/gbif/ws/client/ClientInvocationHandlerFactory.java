@@ -15,15 +15,34 @@ package org.gbif.ws.client;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
 
 import feign.InvocationHandlerFactory;
 import feign.Target;
 
 import static feign.Util.checkNotNull;
 
+/**
+ * Invocation handler factory resolving the handlers of all the methods of a client once, when the
+ * client is built. Methods missing from the Feign dispatch map, like bridge or generic methods
+ * inherited from a parent interface, are matched to the handler of the method with the same name
+ * whose parameters the method accepts. Among overloads, the one matching the type arguments given
+ * to the parent interface by the client is chosen, and the client fails to build if there is no
+ * single match. The methods inherited from {@link Object} are handled by the invocation handler.
+ */
 @SuppressWarnings("unused")
 public class ClientInvocationHandlerFactory implements InvocationHandlerFactory {
 
@@ -34,17 +53,154 @@ public class ClientInvocationHandlerFactory implements InvocationHandlerFactory
 
   static class FeignInvocationHandler implements InvocationHandler {
 
+    // handlers of the methods inherited from Object
+    private static final MethodHandler EQUALS = args -> null;
+    private static final MethodHandler HASH_CODE = args -> null;
+    private static final MethodHandler TO_STRING = args -> null;
+
     private final Target target;
     private final Map<Method, MethodHandler> dispatch;
 
     FeignInvocationHandler(Target target, Map<Method, MethodHandler> dispatch) {
       this.target = checkNotNull(target, "target");
-      this.dispatch = checkNotNull(dispatch, "dispatch for %s", target);
+      this.dispatch = resolveDispatch(target, checkNotNull(dispatch, "dispatch for %s", target));
+    }
+
+    /**
+     * Resolves the handler of every method of the target type, including the inherited and bridge
+     * ones, and of the methods of Object.
+     */
+    private static Map<Method, MethodHandler> resolveDispatch(
+        Target target, Map<Method, MethodHandler> dispatch) {
+      Map<Method, MethodHandler> resolved = new HashMap<>(dispatch);
+
+      Set<Method> methods = new LinkedHashSet<>(Arrays.asList(target.type().getMethods()));
+      Deque<Class<?>> types = new ArrayDeque<>(Collections.singletonList(target.type()));
+      while (!types.isEmpty()) {
+        Class<?> type = types.poll();
+        methods.addAll(Arrays.asList(type.getDeclaredMethods()));
+        types.addAll(Arrays.asList(type.getInterfaces()));
+      }
+
+      Map<TypeVariable<?>, Type> typeArguments = typeArguments(target.type());
+      for (Method method : methods) {
+        if (!resolved.containsKey(method)) {
+          MethodHandler handler = findHandler(method, typeArguments, dispatch);
+          if (handler != null) {
+            resolved.put(method, handler);
+          }
+        }
+      }
+
+      try {
+        resolved.put(Object.class.getMethod("equals", Object.class), EQUALS);
+        resolved.put(Object.class.getMethod("hashCode"), HASH_CODE);
+        resolved.put(Object.class.getMethod("toString"), TO_STRING);
+      } catch (NoSuchMethodException e) {
+        throw new IllegalStateException(e);
+      }
+      return resolved;
+    }
+
+    /**
+     * Finds the handler of a method with the same name and number of parameters, whose parameter
+     * types can be passed to the method, e.g. {@code get(UUID)} for an inherited {@code get(K)}
+     * erased to {@code get(Object)}. If several overloads match, the one taking the parameter
+     * types resolved against the client type is chosen.
+     *
+     * @throws IllegalStateException if several overloads match and none is resolved
+     */
+    private static MethodHandler findHandler(
+        Method method,
+        Map<TypeVariable<?>, Type> typeArguments,
+        Map<Method, MethodHandler> dispatch) {
+      List<Method> candidates = new ArrayList<>();
+      for (Method methodFromDispatch : dispatch.keySet()) {
+        if (methodFromDispatch.getName().equals(method.getName())
+            && methodFromDispatch.getParameterCount() == method.getParameterCount()
+            && isAssignable(method.getParameterTypes(), methodFromDispatch.getParameterTypes())) {
+          candidates.add(methodFromDispatch);
+        }
+      }
+      if (candidates.isEmpty()) {
+        return null;
+      }
+      if (candidates.size() == 1) {
+        return dispatch.get(candidates.get(0));
+      }
+
+      Class<?>[] parameterTypes = resolveParameterTypes(method, typeArguments);
+      for (Method candidate : candidates) {
+        if (Arrays.equals(parameterTypes, candidate.getParameterTypes())) {
+          return dispatch.get(candidate);
+        }
+      }
+      throw new IllegalStateException(
+          "Ambiguous handlers for method " + method + ": " + candidates);
+    }
+
+    private static boolean isAssignable(Class<?>[] targetTypes, Class<?>[] types) {
+      for (int i = 0; i < types.length; i++) {
+        if (!targetTypes[i].isAssignableFrom(types[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Collects the type arguments given to the type variables of all the parent interfaces of a
+     * type, e.g. {@code K -> UUID} for {@code DatasetClient extends CrudClient<Dataset, UUID>}.
+     */
+    private static Map<TypeVariable<?>, Type> typeArguments(Class<?> type) {
+      Map<TypeVariable<?>, Type> typeArguments = new HashMap<>();
+      Deque<Type> types = new ArrayDeque<>(Collections.singletonList(type));
+      while (!types.isEmpty()) {
+        Type current = types.poll();
+        Class<?> rawType;
+        if (current instanceof ParameterizedType) {
+          ParameterizedType parameterizedType = (ParameterizedType) current;
+          rawType = (Class<?>) parameterizedType.getRawType();
+          TypeVariable<?>[] variables = rawType.getTypeParameters();
+          Type[] arguments = parameterizedType.getActualTypeArguments();
+          for (int i = 0; i < variables.length; i++) {
+            typeArguments.put(variables[i], arguments[i]);
+          }
+        } else {
+          rawType = (Class<?>) current;
+        }
+        types.addAll(Arrays.asList(rawType.getGenericInterfaces()));
+      }
+      return typeArguments;
+    }
+
+    /**
+     * Resolves the parameter types of a method against the type arguments of the client type,
+     * keeping the erased type of the parameters which can't be resolved.
+     */
+    private static Class<?>[] resolveParameterTypes(
+        Method method, Map<TypeVariable<?>, Type> typeArguments) {
+      Class<?>[] parameterTypes = method.getParameterTypes();
+      Type[] genericParameterTypes = method.getGenericParameterTypes();
+      for (int i = 0; i < parameterTypes.length; i++) {
+        Type type = genericParameterTypes[i];
+        while (type instanceof TypeVariable && typeArguments.containsKey(type)) {
+          type = typeArguments.get(type);
+        }
+        if (type instanceof Class) {
+          parameterTypes[i] = (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+          parameterTypes[i] = (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+      }
+      return parameterTypes;
     }
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-      if ("equals".equals(method.getName())) {
+      MethodHandler methodHandler = dispatch.get(method);
+
+      if (methodHandler == EQUALS) {
         try {
           Object otherHandler =
               args.length > 0 && args[0] != null ? Proxy.getInvocationHandler(args[0]) : null;
@@ -52,34 +208,15 @@ public class ClientInvocationHandlerFactory implements InvocationHandlerFactory
         } catch (IllegalArgumentException e) {
           return false;
         }
-      } else if ("hashCode".equals(method.getName())) {
+      } else if (methodHandler == HASH_CODE) {
         return hashCode();
-      } else if ("toString".equals(method.getName())) {
+      } else if (methodHandler == TO_STRING) {
         return toString();
+      } else if (methodHandler == null) {
+        throw new UnsupportedOperationException("No handler for method " + method);
       }
 
-      return getMethodHandler(method).invoke(args);
-    }
-
-    private MethodHandler getMethodHandler(Method method) {
-      MethodHandler methodHandler = dispatch.get(method);
-
-      // if the result is not null just return the handler
-      if (methodHandler != null) {
-        return methodHandler;
-      }
-
-      // if not we have to find another handler
-      Optional<Method> anotherMethod =
-          dispatch.keySet().stream()
-              .filter(methodFromDispatch -> !methodFromDispatch.equals(method))
-              .filter(methodFromDispatch -> methodFromDispatch.getName().equals(method.getName()))
-              .filter(
-                  methodFromDispatch ->
-                      methodFromDispatch.getParameterCount() == method.getParameterCount())
-              .findFirst();
-
-      return anotherMethod.map(dispatch::get).orElse(null);
+      return methodHandler.invoke(args);
     }
 
     @Override
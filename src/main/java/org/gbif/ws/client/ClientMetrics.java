@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+import org.apache.http.pool.PoolStats;
+
+import feign.RetryableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer meters of a client built by {@link ClientBuilder}.
+ * <ul>
+ *   <li>{@value #REQUESTS}: timer of each HTTP exchange, until the response headers are received,
+ *   tagged by client, method and status. Its count is the number of responses per status, requests
+ *   failing without a response have the status {@value #STATUS_IO_ERROR}.</li>
+ *   <li>{@value #RETRIES}: counter of the retries made by the {@link ClientRetryer}, tagged by
+ *   client and method.</li>
+ *   <li>{@value #POOL}.leased, .available, .pending and .max: gauges of the shared connection
+ *   pool, tagged by client.</li>
+ *   <li>{@value #CACHE}.requests: counter of the GET requests of the response cache, tagged by
+ *   client and result (hit, stale, revalidated or miss), with the .hit.rate and .size gauges.</li>
+ * </ul>
+ * The method is the Feign config key of the interface method, e.g. {@code
+ * DatasetClient#get(UUID)}.
+ */
+public class ClientMetrics {
+
+  public static final String REQUESTS = "gbif.ws.client.requests";
+  public static final String RETRIES = "gbif.ws.client.retries";
+  public static final String POOL = "gbif.ws.client.pool";
+  public static final String CACHE = "gbif.ws.client.cache";
+  public static final String STATUS_IO_ERROR = "IO_ERROR";
+
+  private final MeterRegistry registry;
+  private final String client;
+  private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+  private final Map<String, Counter> retries = new ConcurrentHashMap<>();
+
+  public ClientMetrics(MeterRegistry registry, String client) {
+    this.registry = Objects.requireNonNull(registry, "registry shall be provided");
+    this.client = Objects.requireNonNull(client, "client shall be provided");
+  }
+
+  /**
+   * Records the duration of an exchange of the method.
+   */
+  public void recordRequest(String method, String status, long durationNanos) {
+    timers
+        .computeIfAbsent(
+            method + ' ' + status,
+            k ->
+                Timer.builder(REQUESTS)
+                    .tag("client", client)
+                    .tag("method", method)
+                    .tag("status", status)
+                    .publishPercentileHistogram()
+                    .register(registry))
+        .record(durationNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Counts a retry of the failed request.
+   */
+  public void recordRetry(RetryableException e) {
+    String method = MethodKeys.of(e);
+    retries
+        .computeIfAbsent(
+            method,
+            k ->
+                Counter.builder(RETRIES)
+                    .tag("client", client)
+                    .tag("method", method)
+                    .register(registry))
+        .increment();
+  }
+
+  /**
+   * Registers the gauges of the connection pool, the supplier returns null once it is closed.
+   */
+  public void bindPool(Supplier<PoolStats> poolStats) {
+    poolGauge("leased", poolStats, PoolStats::getLeased);
+    poolGauge("available", poolStats, PoolStats::getAvailable);
+    poolGauge("pending", poolStats, PoolStats::getPending);
+    poolGauge("max", poolStats, PoolStats::getMax);
+  }
+
+  /**
+   * Registers the counters and the hit rate of the response cache.
+   */
+  public void bindCache(CachingClient cache) {
+    cacheCounter("hit", cache, CachingClient::getHits);
+    cacheCounter("stale", cache, CachingClient::getStaleHits);
+    cacheCounter("revalidated", cache, CachingClient::getRevalidated);
+    cacheCounter("miss", cache, CachingClient::getMisses);
+    Gauge.builder(CACHE + ".hit.rate", cache, CachingClient::getHitRate)
+        .tag("client", client)
+        .register(registry);
+    Gauge.builder(CACHE + ".size", cache, c -> c.getCache().size())
+        .tag("client", client)
+        .register(registry);
+  }
+
+  private void cacheCounter(
+      String result, CachingClient cache, ToDoubleFunction<CachingClient> count) {
+    FunctionCounter.builder(CACHE + ".requests", cache, count)
+        .tag("client", client)
+        .tag("result", result)
+        .register(registry);
+  }
+
+  private void poolGauge(String name, Supplier<PoolStats> poolStats, ToIntFunction<PoolStats> f) {
+    Gauge.builder(
+            POOL + '.' + name,
+            poolStats,
+            s -> {
+              PoolStats stats = s.get();
+              return stats != null ? f.applyAsInt(stats) : Double.NaN;
+            })
+        .tag("client", client)
+        // the supplier is only referenced by the gauge, a weak reference would lose it
+        .strongReference(true)
+        .register(registry);
+  }
+}
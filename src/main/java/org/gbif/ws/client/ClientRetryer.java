@@ -13,6 +13,11 @@
  */
 package org.gbif.ws.client;
 
+import java.net.ConnectException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import org.apache.http.conn.ConnectTimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,12 +29,35 @@ public class ClientRetryer implements Retryer {
 
   private static final Logger LOG = LoggerFactory.getLogger(ClientRetryer.class);
 
+  /**
+   * Randomisation of the intervals between attempts, spreading the retries of concurrent clients.
+   */
+  public enum Jitter {
+    /**
+     * Exponential interval, without randomisation.
+     */
+    NONE,
+    /**
+     * Random interval between 0 and the exponential interval.
+     */
+    FULL,
+    /**
+     * Random interval between the initial interval and 3 times the previous interval, to the
+     * maximum interval.
+     */
+    DECORRELATED
+  }
+
   private final int maxAttempts;
   private final long period;
   private final double multiplier;
   private final double maxInterval;
+  private Jitter jitter = Jitter.NONE;
+  private RetryBudget retryBudget;
+  private Consumer<RetryableException> retryListener;
   int attempt;
   long sleptForMillis;
+  long previousInterval;
 
   public ClientRetryer() {
     this(1000, 3, 1.5);
@@ -45,6 +73,36 @@ public class ClientRetryer implements Retryer {
     this.multiplier = multiplier;
     this.maxInterval = maxInterval;
     this.attempt = 1;
+    this.previousInterval = period;
+  }
+
+  /**
+   * Copy of this retryer randomising the intervals between attempts.
+   */
+  public ClientRetryer withJitter(Jitter jitter) {
+    ClientRetryer copy = (ClientRetryer) clone();
+    copy.jitter = jitter != null ? jitter : Jitter.NONE;
+    return copy;
+  }
+
+  /**
+   * Copy of this retryer whose clones only retry while the budget, shared between them, allows it.
+   */
+  public ClientRetryer withRetryBudget(RetryBudget retryBudget) {
+    ClientRetryer copy = (ClientRetryer) clone();
+    copy.retryBudget = retryBudget;
+    return copy;
+  }
+
+  /**
+   * Copy of this retryer notifying the listener of each retry, before waiting for it, after its
+   * current listener if any.
+   */
+  public ClientRetryer withRetryListener(Consumer<RetryableException> retryListener) {
+    ClientRetryer copy = (ClientRetryer) clone();
+    copy.retryListener =
+        this.retryListener != null ? this.retryListener.andThen(retryListener) : retryListener;
+    return copy;
   }
 
   protected long currentTimeMillis() {
@@ -53,6 +111,15 @@ public class ClientRetryer implements Retryer {
 
   @Override
   public void continueOrPropagate(RetryableException e) {
+    if (!isSafeToRetry(e)) {
+      LOG.warn(
+          "Not retrying {} request failing with '{}: {}'",
+          e.method(),
+          e.getClass().getSimpleName(),
+          e.getMessage());
+      throw e;
+    }
+
     if (attempt++ >= maxAttempts) {
       LOG.error(
           "All {} retry attempts failed. Giving up. Last execution was: '{}: {}'",
@@ -62,6 +129,19 @@ public class ClientRetryer implements Retryer {
       throw e;
     }
 
+    if (retryBudget != null && !retryBudget.tryAcquire(MethodKeys.of(e))) {
+      LOG.warn(
+          "Retry budget exhausted, not retrying {}: '{}: {}'",
+          MethodKeys.of(e),
+          e.getClass().getSimpleName(),
+          e.getMessage());
+      throw e;
+    }
+
+    if (retryListener != null) {
+      retryListener.accept(e);
+    }
+
     long interval;
     if (e.retryAfter() != null) {
       interval = e.retryAfter() - currentTimeMillis();
@@ -69,7 +149,7 @@ public class ClientRetryer implements Retryer {
         return;
       }
     } else {
-      interval = nextMaxInterval();
+      interval = nextInterval();
     }
     try {
       Thread.sleep(interval);
@@ -80,6 +160,20 @@ public class ClientRetryer implements Retryer {
     sleptForMillis += interval;
   }
 
+  /**
+   * Feign makes any I/O error retryable. A non-idempotent request failing after it was sent, e.g.
+   * on a connection reset, may have been processed by the server, it is only retried if the
+   * connection could not be established.
+   */
+  static boolean isSafeToRetry(RetryableException e) {
+    boolean ioError = e.status() == -1;
+    return !ioError
+        || e.method() == null
+        || ClientErrorDecoder.isIdempotent(e.method())
+        || e.getCause() instanceof ConnectException
+        || e.getCause() instanceof ConnectTimeoutException;
+  }
+
   /**
    * Calculates the time interval to a retry attempt. <br>
    * The interval increases exponentially with each attempt, at a rate of nextInterval *= multiplier
@@ -91,8 +185,41 @@ public class ClientRetryer implements Retryer {
     return (long) Math.min(maxInterval, (period * Math.pow(multiplier, attempt - 1)));
   }
 
+  /**
+   * Calculates the time interval to a retry attempt, randomised according to the {@link Jitter}.
+   *
+   * @return time in milliseconds from now until the next attempt.
+   */
+  long nextInterval() {
+    long interval;
+    switch (jitter) {
+      case FULL:
+        interval = ThreadLocalRandom.current().nextLong(nextMaxInterval() + 1);
+        break;
+      case DECORRELATED:
+        long upper = Math.max(period, previousInterval * 3);
+        interval =
+            (long)
+                Math.min(maxInterval, ThreadLocalRandom.current().nextLong(period, upper + 1));
+        break;
+      default:
+        interval = nextMaxInterval();
+    }
+    previousInterval = interval;
+    return interval;
+  }
+
   @Override
   public Retryer clone() {
-    return new ClientRetryer(period, maxAttempts, multiplier, maxInterval);
+    // keeps the runtime type of subclasses, with the state of a first attempt
+    try {
+      ClientRetryer clone = (ClientRetryer) super.clone();
+      clone.attempt = 1;
+      clone.sleptForMillis = 0;
+      clone.previousInterval = period;
+      return clone;
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
   }
 }
@@ -0,0 +1,210 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import org.gbif.ws.client.ClientBuilder.ConnectionPoolConfig;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of HTTP connection pools shared by the clients of the same host using the same
+ * {@link ConnectionPoolConfig}.
+ * <p>
+ * Pools are reference counted: {@link #acquire(String, ConnectionPoolConfig)} creates the pool on
+ * the first call and increments its count, {@link #release(String, ConnectionPoolConfig)}
+ * decrements it and closes the pool once it is no longer used. The pools still open when the JVM
+ * stops are closed by a shutdown hook.
+ * <p>
+ * Idle connections are evicted, connections are discarded after their time to live and validated
+ * before being reused after a period of inactivity, as set in the {@link ConnectionPoolConfig}.
+ */
+public class ConnectionPoolRegistry {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ConnectionPoolRegistry.class);
+
+  private static final ConnectionPoolRegistry DEFAULT = new ConnectionPoolRegistry();
+
+  private final Map<PoolKey, SharedPool> pools = new HashMap<>();
+  private Thread shutdownHook;
+
+  /**
+   * @return the registry used by default by {@link ClientBuilder}
+   */
+  public static ConnectionPoolRegistry getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Gets the pool of the host of the url, creating it if needed, and adds a reference to it.
+   */
+  public synchronized CloseableHttpClient acquire(String url, ConnectionPoolConfig config) {
+    PoolKey key = new PoolKey(url, config);
+    SharedPool pool = pools.get(key);
+    if (pool == null) {
+      pool = new SharedPool(config);
+      pools.put(key, pool);
+      registerShutdownHook();
+      LOG.debug("Connection pool created for {}", key.host);
+    }
+    pool.references++;
+    return pool.httpClient;
+  }
+
+  /**
+   * Removes a reference to the pool of the host of the url, closing the pool if it was the last
+   * one.
+   */
+  public synchronized void release(String url, ConnectionPoolConfig config) {
+    PoolKey key = new PoolKey(url, config);
+    SharedPool pool = pools.get(key);
+    if (pool != null && --pool.references <= 0) {
+      pools.remove(key);
+      pool.close();
+      LOG.debug("Connection pool closed for {}", key.host);
+    }
+  }
+
+  /**
+   * @return the number of references to the pool of the host of the url, 0 if there is no pool
+   */
+  public synchronized int getReferences(String url, ConnectionPoolConfig config) {
+    SharedPool pool = pools.get(new PoolKey(url, config));
+    return pool != null ? pool.references : 0;
+  }
+
+  /**
+   * @return the statistics of the pool of the host of the url, null if there is no pool
+   */
+  public synchronized PoolStats getPoolStats(String url, ConnectionPoolConfig config) {
+    SharedPool pool = pools.get(new PoolKey(url, config));
+    return pool != null ? pool.connectionManager.getTotalStats() : null;
+  }
+
+  /**
+   * Closes all the pools, whatever their references.
+   */
+  public synchronized void closeAll() {
+    List<SharedPool> open = new ArrayList<>(pools.values());
+    pools.clear();
+    open.forEach(SharedPool::close);
+  }
+
+  private void registerShutdownHook() {
+    if (shutdownHook == null) {
+      shutdownHook = new Thread(this::closeAll, "connection-pool-registry-shutdown");
+      Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+  }
+
+  /**
+   * Scheme, host and port of a url with the pool configuration.
+   */
+  private static final class PoolKey {
+
+    private final String host;
+    private final ConnectionPoolConfig config;
+
+    private PoolKey(String url, ConnectionPoolConfig config) {
+      Objects.requireNonNull(url, "url shall be provided");
+      Objects.requireNonNull(config, "config shall be provided");
+      URI uri = URI.create(url);
+      this.host = uri.getScheme() + "://" + uri.getHost() + ':' + uri.getPort();
+      this.config = config;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof PoolKey)) {
+        return false;
+      }
+      PoolKey that = (PoolKey) o;
+      return host.equals(that.host) && config.equals(that.config);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(host, config);
+    }
+  }
+
+  /**
+   * Pooled client with its references.
+   */
+  private static final class SharedPool {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private int references;
+
+    private SharedPool(ConnectionPoolConfig config) {
+      connectionManager =
+          new PoolingHttpClientConnectionManager(
+              config.getTimeToLive() != null ? config.getTimeToLive() : -1L,
+              TimeUnit.MILLISECONDS);
+      connectionManager.setMaxTotal(config.getMaxConnections());
+      connectionManager.setDefaultMaxPerRoute(config.getMaxPerRoute());
+      if (config.getValidateAfterInactivity() != null) {
+        connectionManager.setValidateAfterInactivity(config.getValidateAfterInactivity());
+      }
+      connectionManager.setDefaultSocketConfig(
+          SocketConfig.custom().setSoTimeout(config.getTimeout()).build());
+      connectionManager.setDefaultConnectionConfig(
+          ConnectionConfig.custom().setCharset(StandardCharsets.UTF_8).build());
+
+      HttpClientBuilder builder =
+          HttpClients.custom()
+              .setConnectionManager(connectionManager)
+              .setDefaultRequestConfig(
+                  RequestConfig.custom()
+                      .setConnectTimeout(config.getTimeout())
+                      .setConnectionRequestTimeout(config.getTimeout())
+                      .build())
+              .evictExpiredConnections();
+      if (config.getIdleTimeout() != null) {
+        builder.evictIdleConnections(config.getIdleTimeout(), TimeUnit.MILLISECONDS);
+      }
+      httpClient = builder.build();
+    }
+
+    private void close() {
+      try {
+        httpClient.close();
+      } catch (IOException e) {
+        LOG.warn("Error closing connection pool", e);
+      }
+    }
+  }
+}
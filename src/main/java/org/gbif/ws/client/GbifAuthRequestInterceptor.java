@@ -95,7 +95,9 @@ public class GbifAuthRequestInterceptor implements RequestInterceptor {
       template.header("Content-MD5", contentMd5);
     }
 
-    LOG.debug("Client data to sign: {}", requestDataToSign.stringToSign());
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Client data to sign: {}", requestDataToSign.stringToSign());
+    }
 
     try {
       String signature = signingService.buildSignature(requestDataToSign, secretKey);
@@ -113,6 +115,7 @@ public class GbifAuthRequestInterceptor implements RequestInterceptor {
    * Remove query parameters from the URL.
    */
   private String removeQueryParameters(String url) {
-    return url.split("\\?")[0];
+    int queryStart = url.indexOf('?');
+    return queryStart < 0 ? url : url.substring(0, queryStart);
   }
 }
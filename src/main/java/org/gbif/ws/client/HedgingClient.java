@@ -0,0 +1,262 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Client hedging the GET requests: if the response of a request takes longer than a percentile of
+ * the recent latencies of its method, an identical request is sent and the first response is used.
+ * The other request is cancelled, its response is closed if it still arrives so its connection
+ * returns to the pool.
+ * <p>
+ * With the default 95th percentile about 5% of the GET requests are sent twice, in exchange the
+ * latency of the slowest ones is bounded by the delay plus a typical latency.
+ */
+public class HedgingClient implements Client {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HedgingClient.class);
+
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+  // shared by the clients not given an executor, threads are created on demand
+  private static final ExecutorService DEFAULT_EXECUTOR =
+      Executors.newCachedThreadPool(
+          runnable -> {
+            Thread thread =
+                new Thread(runnable, "hedged-request-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * Hedging configuration.
+   */
+  @Data
+  @Builder
+  public static class Config {
+
+    /**
+     * Percentile of the recent latencies of a method after which a request is hedged.
+     */
+    @Builder.Default private double percentile = 95;
+
+    /**
+     * Number of recent latencies kept per method.
+     */
+    @Builder.Default private int windowSize = 1000;
+
+    /**
+     * Latencies needed before using the percentile, the initial delay is used until then.
+     */
+    @Builder.Default private int minimumSamples = 100;
+
+    @Builder.Default private Duration initialDelay = Duration.ofSeconds(1);
+
+    /**
+     * Lower bound of the delay, so fast methods aren't hedged on small variations.
+     */
+    @Builder.Default private Duration minimumDelay = Duration.ofMillis(10);
+  }
+
+  private final Client delegate;
+  private final Config config;
+  private final ExecutorService executor;
+  private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+  public HedgingClient(Client delegate, Config config) {
+    this(delegate, config, DEFAULT_EXECUTOR);
+  }
+
+  public HedgingClient(Client delegate, Config config, ExecutorService executor) {
+    this.delegate = Objects.requireNonNull(delegate, "delegate shall be provided");
+    this.config = Objects.requireNonNull(config, "config shall be provided");
+    this.executor = Objects.requireNonNull(executor, "executor shall be provided");
+    validate(config);
+  }
+
+  private static void validate(Config config) {
+    if (config.getWindowSize() <= 0) {
+      throw new IllegalArgumentException("windowSize must be positive");
+    }
+    if (config.getMinimumSamples() <= 0 || config.getMinimumSamples() > config.getWindowSize()) {
+      throw new IllegalArgumentException("minimumSamples must be between 1 and windowSize");
+    }
+    if (config.getPercentile() <= 0 || config.getPercentile() > 100) {
+      throw new IllegalArgumentException("percentile must be in ]0, 100]");
+    }
+    Objects.requireNonNull(config.getInitialDelay(), "initialDelay shall be provided");
+    Objects.requireNonNull(config.getMinimumDelay(), "minimumDelay shall be provided");
+  }
+
+  @Override
+  public Response execute(Request request, Request.Options options) throws IOException {
+    if (request.httpMethod() != Request.HttpMethod.GET) {
+      return delegate.execute(request, options);
+    }
+
+    LatencyWindow window =
+        latencies.computeIfAbsent(MethodKeys.of(request), k -> new LatencyWindow(config));
+    Exchange exchange = new Exchange(request, options, window);
+    Future<?> primary = exchange.submit();
+    Future<?> hedge = null;
+    try {
+      try {
+        return exchange.winner.get(window.delayNanos(), TimeUnit.NANOSECONDS);
+      } catch (TimeoutException e) {
+        LOG.debug("Hedging request {}", request.url());
+        hedge = exchange.submit();
+        return exchange.winner.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for " + request.url());
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    } finally {
+      exchange.winner.cancel(false);
+      primary.cancel(true);
+      if (hedge != null) {
+        hedge.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * Attempts of a request, the first response completes the winner.
+   */
+  private class Exchange {
+
+    private final Request request;
+    private final Request.Options options;
+    private final LatencyWindow window;
+    private final CompletableFuture<Response> winner = new CompletableFuture<>();
+    private int attempts;
+    private int failed;
+
+    private Exchange(Request request, Request.Options options, LatencyWindow window) {
+      this.request = request;
+      this.options = options;
+      this.window = window;
+    }
+
+    private synchronized Future<?> submit() {
+      attempts++;
+      return executor.submit(this::attempt);
+    }
+
+    private void attempt() {
+      if (winner.isDone()) {
+        return;
+      }
+      long start = System.nanoTime();
+      try {
+        Response response = delegate.execute(request, options);
+        window.record(System.nanoTime() - start);
+        if (!winner.complete(response)) {
+          // the other attempt won or the caller gave up
+          response.close();
+        }
+      } catch (Throwable e) {
+        // the exchange fails once all its submitted attempts failed, errors included so the
+        // caller never waits forever
+        synchronized (this) {
+          if (++failed >= attempts) {
+            winner.completeExceptionally(e);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Recent latencies of a method.
+   */
+  static class LatencyWindow {
+
+    // the percentile is computed again after this many new latencies
+    private static final int REFRESH = 16;
+
+    private final Config config;
+    private final long[] samples;
+    private int next;
+    private int count;
+    private int sinceRefresh;
+    private volatile long delayNanos;
+
+    LatencyWindow(Config config) {
+      this.config = config;
+      this.samples = new long[config.getWindowSize()];
+      this.delayNanos = config.getInitialDelay().toNanos();
+    }
+
+    synchronized void record(long latencyNanos) {
+      samples[next] = latencyNanos;
+      next = (next + 1) % samples.length;
+      count = Math.min(count + 1, samples.length);
+      if (count >= config.getMinimumSamples() && ++sinceRefresh >= REFRESH) {
+        refresh();
+      }
+    }
+
+    /**
+     * Sets the delay to the percentile of the recent latencies.
+     */
+    synchronized void refresh() {
+      sinceRefresh = 0;
+      long[] sorted = Arrays.copyOf(samples, count);
+      Arrays.sort(sorted);
+      int index = (int) Math.ceil(config.getPercentile() / 100 * count) - 1;
+      delayNanos =
+          Math.max(
+              config.getMinimumDelay().toNanos(), sorted[Math.max(0, Math.min(count - 1, index))]);
+    }
+
+    long delayNanos() {
+      return delayNanos;
+    }
+  }
+}
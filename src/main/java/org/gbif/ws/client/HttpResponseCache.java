@@ -0,0 +1,35 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+/**
+ * Storage of the responses cached by a {@link CachingClient}, keyed by request url. Implementations
+ * must be thread safe and bound their size.
+ */
+public interface HttpResponseCache {
+
+  /**
+   * @return the response cached for the key, null if none
+   */
+  CachedResponse get(String key);
+
+  void put(String key, CachedResponse response);
+
+  void remove(String key);
+
+  /**
+   * @return the number of cached responses
+   */
+  int size();
+}
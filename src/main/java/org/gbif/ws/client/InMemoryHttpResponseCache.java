@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used responses kept on the heap, bounded by a number of responses and a total
+ * size in bytes.
+ */
+public class InMemoryHttpResponseCache implements HttpResponseCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 10_000;
+  public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+  private final int maxEntries;
+  private final long maxBytes;
+  private final LinkedHashMap<String, CachedResponse> entries =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private long bytes;
+
+  public InMemoryHttpResponseCache() {
+    this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+  }
+
+  public InMemoryHttpResponseCache(int maxEntries, long maxBytes) {
+    if (maxEntries <= 0 || maxBytes <= 0) {
+      throw new IllegalArgumentException("maxEntries and maxBytes must be positive");
+    }
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+  }
+
+  @Override
+  public synchronized CachedResponse get(String key) {
+    return entries.get(key);
+  }
+
+  @Override
+  public synchronized void put(String key, CachedResponse response) {
+    if (response.size() > maxBytes) {
+      remove(key);
+      return;
+    }
+    CachedResponse previous = entries.put(key, response);
+    bytes += response.size() - (previous != null ? previous.size() : 0);
+
+    // evicts the least recently used responses
+    Iterator<Map.Entry<String, CachedResponse>> eldest = entries.entrySet().iterator();
+    while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+      bytes -= eldest.next().getValue().size();
+      eldest.remove();
+    }
+  }
+
+  @Override
+  public synchronized void remove(String key) {
+    CachedResponse removed = entries.remove(key);
+    if (removed != null) {
+      bytes -= removed.size();
+    }
+  }
+
+  @Override
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return the total size of the cached responses in bytes
+   */
+  public synchronized long getBytes() {
+    return bytes;
+  }
+}
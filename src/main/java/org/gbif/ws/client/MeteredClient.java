@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import feign.AsyncClient;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+/**
+ * Client recording the duration and status of each exchange in the {@link ClientMetrics}.
+ */
+class MeteredClient implements Client {
+
+  private final Client delegate;
+  private final ClientMetrics metrics;
+
+  MeteredClient(Client delegate, ClientMetrics metrics) {
+    this.delegate = Objects.requireNonNull(delegate, "delegate shall be provided");
+    this.metrics = Objects.requireNonNull(metrics, "metrics shall be provided");
+  }
+
+  @Override
+  public Response execute(Request request, Request.Options options) throws IOException {
+    long start = System.nanoTime();
+    String status = ClientMetrics.STATUS_IO_ERROR;
+    try {
+      Response response = delegate.execute(request, options);
+      status = String.valueOf(response.status());
+      return response;
+    } finally {
+      metrics.recordRequest(MethodKeys.of(request), status, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Asynchronous counterpart, recording when the response future completes.
+   */
+  static class Async<C> implements AsyncClient<C> {
+
+    private final AsyncClient<C> delegate;
+    private final ClientMetrics metrics;
+
+    Async(AsyncClient<C> delegate, ClientMetrics metrics) {
+      this.delegate = Objects.requireNonNull(delegate, "delegate shall be provided");
+      this.metrics = Objects.requireNonNull(metrics, "metrics shall be provided");
+    }
+
+    @Override
+    public CompletableFuture<Response> execute(
+        Request request, Request.Options options, Optional<C> requestContext) {
+      long start = System.nanoTime();
+      return delegate
+          .execute(request, options, requestContext)
+          .whenComplete(
+              (response, error) ->
+                  metrics.recordRequest(
+                      MethodKeys.of(request),
+                      response != null
+                          ? String.valueOf(response.status())
+                          : ClientMetrics.STATUS_IO_ERROR,
+                      System.nanoTime() - start));
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import feign.FeignException;
+import feign.Request;
+import feign.RequestTemplate;
+
+/**
+ * Identifies the interface method which created a Feign request, by its config key, e.g. {@code
+ * DatasetClient#get(UUID)}.
+ */
+final class MethodKeys {
+
+  static final String UNKNOWN = "unknown";
+
+  private MethodKeys() {}
+
+  /**
+   * @return the config key of the interface method which created the request
+   */
+  static String of(Request request) {
+    RequestTemplate template = request != null ? request.requestTemplate() : null;
+    return template != null && template.methodMetadata() != null
+        ? template.methodMetadata().configKey()
+        : UNKNOWN;
+  }
+
+  static String of(FeignException e) {
+    return e.hasRequest() ? of(e.request()) : UNKNOWN;
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import org.gbif.api.model.common.paging.Pageable;
+import org.gbif.api.model.common.paging.PagingRequest;
+import org.gbif.api.model.common.paging.PagingResponse;
+import org.gbif.ws.CommonRuntimeException;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates lazily over all the records of a paged client method, e.g. a method of a client built by
+ * {@link ClientBuilder} returning a {@link PagingResponse}.
+ * <p>
+ * The next pages are fetched in the background while the current one is consumed, up to the
+ * prefetch depth; a depth of 0 fetches each page when it is needed, in the calling thread. The
+ * iteration ends on the page marked as end of records or on an empty page. The page size must not
+ * be above the maximum page size of the service, otherwise records would be skipped.
+ * <p>
+ * Example:
+ * <pre>
+ * {@code
+ * try (Stream<Dataset> datasets = PagingResponseIterator.stream(client::list, 500, 2)) {
+ *   datasets.forEach(this::process);
+ * }
+ * }
+ * </pre>
+ *
+ * @param <T> record type
+ */
+public class PagingResponseIterator<T> implements Iterator<T>, Closeable {
+
+  public static final int DEFAULT_PAGE_SIZE = 1000;
+  public static final int DEFAULT_PREFETCH = 1;
+
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+  // shared by the iterators not given an executor, threads are created on demand
+  private static final ExecutorService DEFAULT_EXECUTOR =
+      Executors.newCachedThreadPool(
+          runnable -> {
+            Thread thread =
+                new Thread(runnable, "paging-prefetch-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final Function<Pageable, PagingResponse<T>> pageFetcher;
+  private final int pageSize;
+  private final int prefetch;
+  private final Executor executor;
+
+  // requested pages in offset order, the head is the next one
+  private final Deque<CompletableFuture<PagingResponse<T>>> pages = new ArrayDeque<>();
+  private long nextOffset;
+  private boolean lastPageReached;
+  private Iterator<T> current = Collections.emptyIterator();
+
+  public PagingResponseIterator(Function<Pageable, PagingResponse<T>> pageFetcher) {
+    this(pageFetcher, DEFAULT_PAGE_SIZE, DEFAULT_PREFETCH);
+  }
+
+  public PagingResponseIterator(
+      Function<Pageable, PagingResponse<T>> pageFetcher, int pageSize, int prefetch) {
+    this(pageFetcher, pageSize, prefetch, DEFAULT_EXECUTOR);
+  }
+
+  /**
+   * @param pageFetcher fetches a page, usually a client method reference
+   * @param pageSize number of records requested per page
+   * @param prefetch number of pages fetched ahead of the one being consumed
+   * @param executor runs the background fetches
+   */
+  public PagingResponseIterator(
+      Function<Pageable, PagingResponse<T>> pageFetcher,
+      int pageSize,
+      int prefetch,
+      Executor executor) {
+    Objects.requireNonNull(pageFetcher, "pageFetcher shall be provided");
+    Objects.requireNonNull(executor, "executor shall be provided");
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("Page size must be positive");
+    }
+    if (prefetch < 0) {
+      throw new IllegalArgumentException("Prefetch depth must not be negative");
+    }
+    this.pageFetcher = pageFetcher;
+    this.pageSize = pageSize;
+    this.prefetch = prefetch;
+    this.executor = executor;
+  }
+
+  /**
+   * Stream over all the records, closing the stream cancels the pages fetched ahead.
+   */
+  public static <T> Stream<T> stream(
+      Function<Pageable, PagingResponse<T>> pageFetcher, int pageSize, int prefetch) {
+    return stream(new PagingResponseIterator<>(pageFetcher, pageSize, prefetch));
+  }
+
+  public static <T> Stream<T> stream(Function<Pageable, PagingResponse<T>> pageFetcher) {
+    return stream(new PagingResponseIterator<>(pageFetcher));
+  }
+
+  private static <T> Stream<T> stream(PagingResponseIterator<T> iterator) {
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+        .onClose(iterator::close);
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (!current.hasNext()) {
+      if (lastPageReached) {
+        return false;
+      }
+      PagingResponse<T> page = nextPage();
+      List<T> results =
+          page != null && page.getResults() != null ? page.getResults() : Collections.emptyList();
+      if (page == null || results.isEmpty() || Boolean.TRUE.equals(page.isEndOfRecords())) {
+        lastPageReached = true;
+        close();
+      }
+      current = results.iterator();
+    }
+    return true;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return current.next();
+  }
+
+  /**
+   * Takes the next page, requesting the following ones before waiting for it.
+   */
+  private PagingResponse<T> nextPage() {
+    if (pages.isEmpty()) {
+      pages.add(fetch());
+    }
+    CompletableFuture<PagingResponse<T>> page = pages.poll();
+    while (pages.size() < prefetch) {
+      pages.add(fetch());
+    }
+    try {
+      return page.join();
+    } catch (CompletionException e) {
+      close();
+      Throwable cause = e.getCause() != null ? e.getCause() : e;
+      throw cause instanceof RuntimeException
+          ? (RuntimeException) cause
+          : new CommonRuntimeException(cause);
+    }
+  }
+
+  private CompletableFuture<PagingResponse<T>> fetch() {
+    Pageable pageable = new PagingRequest(nextOffset, pageSize);
+    nextOffset += pageSize;
+    if (prefetch == 0) {
+      return CompletableFuture.completedFuture(pageFetcher.apply(pageable));
+    }
+    return CompletableFuture.supplyAsync(() -> pageFetcher.apply(pageable), executor);
+  }
+
+  /**
+   * Cancels the pages fetched ahead.
+   */
+  @Override
+  public void close() {
+    CompletableFuture<PagingResponse<T>> page;
+    while ((page = pages.poll()) != null) {
+      page.cancel(false);
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import feign.AsyncClient;
+import feign.Client;
+import feign.Response;
+
+/**
+ * Token bucket limiting the retries of all the clones of a {@link ClientRetryer} to a fraction of
+ * the successful requests.
+ * <p>
+ * Each successful response, i.e. neither a server error nor a 429, deposits {@code retryRatio}
+ * tokens, up to {@code maxRetries} tokens, and each retry withdraws one. The bucket starts full.
+ * When it is empty, failures are propagated without retrying, so a restarting server isn't
+ * flooded with the retries of all its clients.
+ */
+public class RetryBudget {
+
+  private static final long TOKEN = 1000;
+
+  private final long deposit;
+  private final long capacity;
+  private final AtomicLong balance;
+  private final Map<String, LongAdder> retries = new ConcurrentHashMap<>();
+
+  /**
+   * @param retryRatio tokens deposited by a successful request, e.g. 0.1 to allow 1 retry per 10
+   *     successful requests
+   * @param maxRetries maximum number of tokens, i.e. of retries in a burst
+   */
+  public RetryBudget(double retryRatio, int maxRetries) {
+    if (retryRatio < 0 || maxRetries < 0) {
+      throw new IllegalArgumentException("retryRatio and maxRetries must not be negative");
+    }
+    this.deposit = (long) (retryRatio * TOKEN);
+    this.capacity = maxRetries * TOKEN;
+    this.balance = new AtomicLong(capacity);
+  }
+
+  /**
+   * Records a successful request.
+   */
+  public void deposit() {
+    balance.accumulateAndGet(deposit, (current, d) -> Math.min(capacity, current + d));
+  }
+
+  /**
+   * Withdraws a token for a retry of the method.
+   *
+   * @return false if the budget is exhausted and the method must not be retried
+   */
+  public boolean tryAcquire(String method) {
+    long current;
+    do {
+      current = balance.get();
+      if (current < TOKEN) {
+        return false;
+      }
+    } while (!balance.compareAndSet(current, current - TOKEN));
+    retries.computeIfAbsent(method, k -> new LongAdder()).increment();
+    return true;
+  }
+
+  /**
+   * @return the number of retries left in the budget
+   */
+  public long getAvailableRetries() {
+    return balance.get() / TOKEN;
+  }
+
+  /**
+   * @return the number of retries granted to the method
+   */
+  public long getRetries(String method) {
+    LongAdder count = retries.get(method);
+    return count != null ? count.sum() : 0;
+  }
+
+  /**
+   * Client depositing in this budget for each successful response of the delegate.
+   */
+  public Client track(Client delegate) {
+    Objects.requireNonNull(delegate, "delegate shall be provided");
+    return (request, options) -> {
+      Response response = delegate.execute(request, options);
+      depositIfSuccessful(response);
+      return response;
+    };
+  }
+
+  /**
+   * Asynchronous client depositing in this budget for each successful response of the delegate.
+   */
+  public <C> AsyncClient<C> track(AsyncClient<C> delegate) {
+    Objects.requireNonNull(delegate, "delegate shall be provided");
+    return (request, options, requestContext) -> {
+      CompletableFuture<Response> response =
+          delegate.execute(request, options, requestContext);
+      return response.whenComplete((r, error) -> depositIfSuccessful(r));
+    };
+  }
+
+  private void depositIfSuccessful(Response response) {
+    // client errors are answers from a healthy server
+    if (response != null && response.status() < 500 && response.status() != 429) {
+      deposit();
+    }
+  }
+}
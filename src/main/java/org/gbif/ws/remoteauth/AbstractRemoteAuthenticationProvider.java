@@ -19,6 +19,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 import org.springframework.http.HttpHeaders;
@@ -26,6 +30,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -34,12 +39,22 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.SneakyThrows;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Base class for authentication against remote end-points.
+ * <p>
+ * If a {@link RemoteAuthResultCache} is set, the authentications created from the responses of the
+ * remote service are cached using the headers of {@link #createHttpHeaders(Authentication)} as
+ * key, including rejected credentials, so a hit does not parse the response again.
+ * <p>
+ * Concurrent logins with the same headers share a single remote call and its result.
  *
  * @param <T> supported authentication type.
  */
@@ -57,6 +72,14 @@ public abstract class AbstractRemoteAuthenticationProvider<T extends Authenticat
 
   private final String authWsPath;
 
+  private RemoteAuthResultCache resultCache;
+
+  @Getter(AccessLevel.NONE)
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private final ConcurrentMap<HttpHeaders, CompletableFuture<ResponseEntity<String>>>
+      inFlightLogins = new ConcurrentHashMap<>();
+
   public AbstractRemoteAuthenticationProvider(
       Class<T> authClass, String authWsPath, RemoteAuthClient remoteAuthClient) {
     this.authClass = authClass;
@@ -66,7 +89,28 @@ public abstract class AbstractRemoteAuthenticationProvider<T extends Authenticat
 
   @Override
   public Authentication authenticate(Authentication authentication) throws AuthenticationException {
-    return createSuccessAuthentication(tryLogin((T) authentication), authentication);
+    if (resultCache == null) {
+      return createSuccessAuthentication(tryLogin((T) authentication), authentication);
+    }
+
+    HttpHeaders headers = createHttpHeaders(authentication);
+    Authentication cached = resultCache.get(headers);
+    if (cached != null) {
+      return cached;
+    }
+
+    ResponseEntity<String> response;
+    try {
+      response = tryLogin((T) authentication);
+    } catch (BadCredentialsException e) {
+      resultCache.putRejected(headers);
+      throw e;
+    }
+    Authentication result = createSuccessAuthentication(response, authentication);
+    if (response.getStatusCode().is2xxSuccessful()) {
+      resultCache.put(headers, result);
+    }
+    return result;
   }
 
   @Override
@@ -74,10 +118,45 @@ public abstract class AbstractRemoteAuthenticationProvider<T extends Authenticat
     return authClass.isAssignableFrom(authentication);
   }
 
-  /** Performs the remote call to the login service. */
+  /**
+   * Performs the remote call to the login service. If a call with the same headers is already in
+   * progress its result is used instead.
+   */
   @Retryable(value = RuntimeException.class, maxAttempts = 5, backoff = @Backoff(delay = 300))
   protected ResponseEntity<String> tryLogin(T authentication) {
-    return remoteAuthClient.remoteAuth(authWsPath, createHttpHeaders(authentication));
+    HttpHeaders headers = createHttpHeaders(authentication);
+    CompletableFuture<ResponseEntity<String>> call = new CompletableFuture<>();
+    CompletableFuture<ResponseEntity<String>> inFlight = inFlightLogins.putIfAbsent(headers, call);
+    if (inFlight != null) {
+      return awaitLogin(inFlight);
+    }
+
+    try {
+      ResponseEntity<String> response = remoteAuthClient.remoteAuth(authWsPath, headers);
+      call.complete(response);
+      return response;
+    } catch (Throwable e) {
+      // any failure, errors included, must release the waiting logins
+      call.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlightLogins.remove(headers, call);
+    }
+  }
+
+  private static ResponseEntity<String> awaitLogin(
+      CompletableFuture<ResponseEntity<String>> inFlight) {
+    try {
+      return inFlight.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
   }
 
   public abstract HttpHeaders createHttpHeaders(Authentication authentication);
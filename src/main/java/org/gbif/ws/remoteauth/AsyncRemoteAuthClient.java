@@ -0,0 +1,31 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.remoteauth;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * {@link RemoteAuthClient} which can also authenticate without blocking the calling thread.
+ */
+public interface AsyncRemoteAuthClient extends RemoteAuthClient {
+
+  /**
+   * Same as {@link #remoteAuth(String, HttpHeaders)}, the returned future completes exceptionally
+   * with the same exceptions.
+   */
+  CompletableFuture<ResponseEntity<String>> remoteAuthAsync(String path, HttpHeaders headers);
+}
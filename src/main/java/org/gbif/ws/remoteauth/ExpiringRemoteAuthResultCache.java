@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.remoteauth;
+
+import org.gbif.ws.util.ExpiringCache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * In-memory {@link RemoteAuthResultCache} with a maximum size and separate expiration times for
+ * successful and rejected authentications.
+ * <p>
+ * Headers carry credentials, so entries are keyed by a salted SHA-256 digest of them instead of the
+ * headers themselves.
+ */
+public class ExpiringRemoteAuthResultCache implements RemoteAuthResultCache {
+
+  // cached in place of an authentication for rejected credentials
+  private static final Object REJECTED = new Object();
+
+  private final ExpiringCache<String, Object> cache;
+  private final Duration negativeExpireAfterWrite;
+  private final byte[] salt = new byte[32];
+
+  public ExpiringRemoteAuthResultCache(
+      int maxSize, Duration expireAfterWrite, Duration negativeExpireAfterWrite) {
+    this.cache = new ExpiringCache<>(maxSize, expireAfterWrite);
+    this.negativeExpireAfterWrite = negativeExpireAfterWrite;
+    new SecureRandom().nextBytes(salt);
+  }
+
+  @Nullable
+  @Override
+  public Authentication get(HttpHeaders headers) {
+    Object cached = cache.get(digest(headers));
+    if (cached == REJECTED) {
+      throw new BadCredentialsException("Wrong credentials for user");
+    }
+    return (Authentication) cached;
+  }
+
+  @Override
+  public void put(HttpHeaders headers, Authentication authentication) {
+    cache.put(digest(headers), authentication);
+  }
+
+  @Override
+  public void putRejected(HttpHeaders headers) {
+    cache.put(digest(headers), REJECTED, negativeExpireAfterWrite);
+  }
+
+  @Override
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public long getHitCount() {
+    return cache.getHitCount();
+  }
+
+  public long getMissCount() {
+    return cache.getMissCount();
+  }
+
+  private String digest(HttpHeaders headers) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(salt);
+      for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+        digest.update(header.getKey().toLowerCase().getBytes(StandardCharsets.UTF_8));
+        for (String value : header.getValue()) {
+          digest.update((byte) 0);
+          digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) '\n');
+      }
+      return Base64.getEncoder().encodeToString(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 digest is not available", e);
+    }
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.remoteauth;
+
+import org.gbif.ws.client.ClientMetrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.web.client.RestClientException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * {@link RemoteAuthClient} using a pool of keep-alive connections to the registry, so that auth
+ * calls don't open a new connection each time.
+ * <p>
+ * Asynchronous calls run on a dedicated executor sized after the connections allowed per route, so
+ * a slow registry only holds that many threads and the callers are not blocked.
+ * <p>
+ * Pool and request statistics are exposed by {@link #getPoolStats()}, {@link #getRequestCount()},
+ * {@link #getFailureCount()} and {@link #getTotalRequestTimeMillis()}, and exported as the pool
+ * gauges and request timer of {@link ClientMetrics} when a registry is given with
+ * {@link #withMeterRegistry(MeterRegistry)}. See {@link RemoteAuthWebSecurityConfigurer} to use
+ * it instead of {@link RestTemplateRemoteAuthClient}.
+ */
+public class PooledRemoteAuthClient implements AsyncRemoteAuthClient, Closeable {
+
+  private final String rootUri;
+  private final PoolingHttpClientConnectionManager connectionManager;
+  private final CloseableHttpClient httpClient;
+  private final ExecutorService executor;
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder requestTimeMillis = new LongAdder();
+
+  private ClientMetrics metrics;
+  private volatile boolean closed;
+
+  public PooledRemoteAuthClient(String rootUri, PoolConfig poolConfig) {
+    this.rootUri = rootUri.endsWith("/") ? rootUri.substring(0, rootUri.length() - 1) : rootUri;
+
+    connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(poolConfig.getMaxConnections());
+    connectionManager.setDefaultMaxPerRoute(poolConfig.getMaxPerRoute());
+    connectionManager.setValidateAfterInactivity(2_000);
+
+    RequestConfig requestConfig =
+        RequestConfig.custom()
+            .setConnectTimeout((int) poolConfig.getConnectTimeout().toMillis())
+            .setConnectionRequestTimeout((int) poolConfig.getConnectTimeout().toMillis())
+            .setSocketTimeout((int) poolConfig.getReadTimeout().toMillis())
+            .build();
+
+    long keepAliveMillis = poolConfig.getKeepAlive().toMillis();
+    httpClient =
+        HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .setKeepAliveStrategy(
+                (response, context) -> {
+                  long serverKeepAlive =
+                      DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(
+                          response, context);
+                  return serverKeepAlive > 0
+                      ? Math.min(serverKeepAlive, keepAliveMillis)
+                      : keepAliveMillis;
+                })
+            .evictExpiredConnections()
+            .evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
+            .build();
+
+    AtomicInteger threadCount = new AtomicInteger();
+    executor =
+        Executors.newFixedThreadPool(
+            poolConfig.getMaxPerRoute(),
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "remote-auth-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  public static PooledRemoteAuthClient createInstance(String gbifApiUrl) {
+    return new PooledRemoteAuthClient(gbifApiUrl, PoolConfig.builder().build());
+  }
+
+  /**
+   * Registry to export the pool and request metrics to, tagged with the client
+   * {@code RemoteAuthClient} and the path as method. To be set before the client is used.
+   */
+  public PooledRemoteAuthClient withMeterRegistry(MeterRegistry meterRegistry) {
+    metrics = new ClientMetrics(meterRegistry, "RemoteAuthClient");
+    metrics.bindPool(() -> closed ? null : connectionManager.getTotalStats());
+    return this;
+  }
+
+  @Override
+  public ResponseEntity<String> remoteAuth(String path, HttpHeaders headers) {
+    HttpPost post = new HttpPost(rootUri + path);
+    headers.forEach((name, values) -> values.forEach(value -> post.addHeader(name, value)));
+
+    long start = System.nanoTime();
+    String metricStatus = ClientMetrics.STATUS_IO_ERROR;
+    requests.increment();
+    try (CloseableHttpResponse response = httpClient.execute(post)) {
+      metricStatus = String.valueOf(response.getStatusLine().getStatusCode());
+      HttpStatus status = HttpStatus.valueOf(response.getStatusLine().getStatusCode());
+      if (status == HttpStatus.UNAUTHORIZED
+          || status == HttpStatus.FORBIDDEN
+          || status == HttpStatus.BAD_REQUEST) {
+        EntityUtils.consumeQuietly(response.getEntity());
+        throw new BadCredentialsException("Wrong credentials for user");
+      }
+      if (status.isError()) {
+        EntityUtils.consumeQuietly(response.getEntity());
+        throw new RestClientException("Could not authenticate user, response status " + status);
+      }
+      return ResponseEntity.status(status)
+          .headers(toHttpHeaders(response))
+          .body(readBody(response));
+    } catch (BadCredentialsException | RestClientException e) {
+      failures.increment();
+      throw e;
+    } catch (Exception e) {
+      failures.increment();
+      throw new RestClientException("Could not authenticate user", e);
+    } finally {
+      long durationNanos = System.nanoTime() - start;
+      requestTimeMillis.add(TimeUnit.NANOSECONDS.toMillis(durationNanos));
+      if (metrics != null) {
+        metrics.recordRequest(path, metricStatus, durationNanos);
+      }
+    }
+  }
+
+  @Override
+  public CompletableFuture<ResponseEntity<String>> remoteAuthAsync(
+      String path, HttpHeaders headers) {
+    return CompletableFuture.supplyAsync(() -> remoteAuth(path, headers), executor)
+        .exceptionallyCompose(
+            e ->
+                CompletableFuture.failedFuture(
+                    e instanceof CompletionException && e.getCause() != null ? e.getCause() : e));
+  }
+
+  private static HttpHeaders toHttpHeaders(CloseableHttpResponse response) {
+    HttpHeaders headers = new HttpHeaders();
+    for (Header header : response.getAllHeaders()) {
+      headers.add(header.getName(), header.getValue());
+    }
+    return headers;
+  }
+
+  private static String readBody(CloseableHttpResponse response) throws IOException {
+    HttpEntity entity = response.getEntity();
+    return entity != null ? EntityUtils.toString(entity, StandardCharsets.UTF_8) : null;
+  }
+
+  /** Statistics of the connection pool: leased, pending and available connections. */
+  public PoolStats getPoolStats() {
+    return connectionManager.getTotalStats();
+  }
+
+  public long getRequestCount() {
+    return requests.sum();
+  }
+
+  public long getFailureCount() {
+    return failures.sum();
+  }
+
+  public long getTotalRequestTimeMillis() {
+    return requestTimeMillis.sum();
+  }
+
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    executor.shutdown();
+    httpClient.close();
+  }
+
+  /** Connection pool configuration, defaults are suited for a single registry host. */
+  @Data
+  @Builder
+  public static class PoolConfig {
+
+    @Builder.Default private int maxConnections = 100;
+    @Builder.Default private int maxPerRoute = 50;
+    @Builder.Default private Duration connectTimeout = Duration.ofSeconds(5);
+    @Builder.Default private Duration readTimeout = Duration.ofSeconds(30);
+    @Builder.Default private Duration keepAlive = Duration.ofSeconds(30);
+  }
+}
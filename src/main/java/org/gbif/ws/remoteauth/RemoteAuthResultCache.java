@@ -0,0 +1,47 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.remoteauth;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Cache of remote authentication results, keyed by the headers sent to the login service.
+ * <p>
+ * The authentications created from successful responses are cached, so a hit needs neither the
+ * remote call nor parsing its response; the same instance is returned to every request, so it must
+ * not be modified. Rejected credentials are cached too, and implementations can keep them for a
+ * shorter time than successful logins.
+ *
+ * @see AbstractRemoteAuthenticationProvider#setResultCache(RemoteAuthResultCache)
+ */
+public interface RemoteAuthResultCache {
+
+  /**
+   * @return the cached authentication for the authentication headers, or null if none is cached
+   * @throws BadCredentialsException if the headers are cached as rejected credentials
+   */
+  @Nullable
+  Authentication get(HttpHeaders headers) throws BadCredentialsException;
+
+  void put(HttpHeaders headers, Authentication authentication);
+
+  /** Caches the headers as rejected credentials. */
+  void putRejected(HttpHeaders headers);
+
+  void invalidateAll();
+}
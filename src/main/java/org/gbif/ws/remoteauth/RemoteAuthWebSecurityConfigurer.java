@@ -19,12 +19,24 @@ import org.gbif.ws.remoteauth.basic.BasicAuthRequestFilter;
 import org.gbif.ws.remoteauth.basic.BasicRemoteAuthenticationProvider;
 import org.gbif.ws.remoteauth.jwt.JwtRemoteBasicAuthenticationProvider;
 import org.gbif.ws.remoteauth.jwt.JwtRequestFilter;
+import org.gbif.ws.remoteauth.jwt.LocalJwtAuthenticationProvider;
 import org.gbif.ws.security.SecurityUtils;
+import org.gbif.ws.server.filter.FusedSecurityFilter;
 import org.gbif.ws.server.filter.HttpServletRequestWrapperFilter;
+import org.gbif.ws.server.filter.RequestAuthenticator;
 import org.gbif.ws.server.filter.RequestHeaderParamUpdateFilter;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
@@ -34,16 +46,96 @@ import org.springframework.web.cors.CorsConfigurationSource;
  * Security Adapter that disables the authentication redirect and use GBIF remote services.
  * Supports Basic and JWT authentication through JwtRemoteBasicAuthenticationProvider and
  * JwtRemoteBasicAuthenticationProvider.
+ * <p>
+ * Remote authentication results are cached when gbif.ws.security.remoteAuthCache.maxSize is set.
+ * JWT tokens are verified locally when gbif.ws.security.jwt.secret or
+ * gbif.ws.security.jwt.keySetFile is set, see {@link LocalJwtAuthenticationProvider}.
+ * Setting gbif.ws.security.fusedFilter runs the authentication filters inside a single
+ * {@link FusedSecurityFilter}.
+ * <p>
+ * The {@link RemoteAuthClient} is a bean of the application, usually a
+ * {@link RestTemplateRemoteAuthClient}. To keep the connections to the registry alive and export
+ * their metrics, declare a {@link PooledRemoteAuthClient} instead:
+ * <pre>
+ *   @Bean(destroyMethod = "close")
+ *   public RemoteAuthClient remoteAuthClient(
+ *     @Value("${gbif.api.url}") String gbifApiUrl, MeterRegistry meterRegistry
+ *   ) {
+ *     return PooledRemoteAuthClient.createInstance(gbifApiUrl).withMeterRegistry(meterRegistry);
+ *   }
+ * </pre>
+ * The authentication providers call it synchronously, its {@link AsyncRemoteAuthClient} methods
+ * are meant for the callers authenticating outside the request thread.
  */
 public class RemoteAuthWebSecurityConfigurer {
 
+  @Value("${gbif.ws.security.remoteAuthCache.maxSize:0}")
+  private int cacheMaxSize;
+
+  @Value("${gbif.ws.security.remoteAuthCache.expireAfterSeconds:60}")
+  private long cacheExpireAfterSeconds;
+
+  @Value("${gbif.ws.security.remoteAuthCache.negativeExpireAfterSeconds:10}")
+  private long cacheNegativeExpireAfterSeconds;
+
+  @Value("${gbif.ws.security.jwt.secret:}")
+  private String jwtSecret;
+
+  @Value("${gbif.ws.security.jwt.keySetFile:}")
+  private String jwtKeySetFile;
+
+  @Value("${gbif.ws.security.jwt.issuer:}")
+  private String jwtIssuer;
+
+  @Value("${gbif.ws.security.jwt.refreshWindowSeconds:0}")
+  private long jwtRefreshWindowSeconds;
+
+  @Value("${gbif.ws.security.fusedFilter:false}")
+  private boolean fusedFilter;
+
   @Bean
   public AuthenticationManager authenticationManager(RemoteAuthClient remoteAuthClient)
       throws Exception {
-    return new ProviderManager(
-        new BasicRemoteAuthenticationProvider(remoteAuthClient),
-        new JwtRemoteBasicAuthenticationProvider(remoteAuthClient),
-        new GbifAppRemoteAuthenticationProvider(remoteAuthClient));
+    BasicRemoteAuthenticationProvider basicProvider =
+        new BasicRemoteAuthenticationProvider(remoteAuthClient);
+    JwtRemoteBasicAuthenticationProvider jwtProvider =
+        new JwtRemoteBasicAuthenticationProvider(remoteAuthClient);
+    GbifAppRemoteAuthenticationProvider appProvider =
+        new GbifAppRemoteAuthenticationProvider(remoteAuthClient);
+
+    if (cacheMaxSize > 0) {
+      for (AbstractRemoteAuthenticationProvider<?> provider :
+          List.of(basicProvider, jwtProvider, appProvider)) {
+        provider.setResultCache(
+            new ExpiringRemoteAuthResultCache(
+                cacheMaxSize,
+                Duration.ofSeconds(cacheExpireAfterSeconds),
+                Duration.ofSeconds(cacheNegativeExpireAfterSeconds)));
+      }
+    }
+
+    return new ProviderManager(basicProvider, jwtAuthenticationProvider(jwtProvider), appProvider);
+  }
+
+  /**
+   * Verifies JWT tokens locally if a secret or key set is configured, using the remote provider as
+   * fallback. Otherwise, all tokens are verified remotely.
+   */
+  private AuthenticationProvider jwtAuthenticationProvider(
+      JwtRemoteBasicAuthenticationProvider remoteProvider) throws IOException {
+    String issuer = StringUtils.trimToNull(jwtIssuer);
+    LocalJwtAuthenticationProvider localProvider;
+    if (StringUtils.isNotBlank(jwtKeySetFile)) {
+      localProvider =
+          LocalJwtAuthenticationProvider.withKeySet(
+              Paths.get(jwtKeySetFile), issuer, remoteProvider);
+    } else if (StringUtils.isNotBlank(jwtSecret)) {
+      localProvider = LocalJwtAuthenticationProvider.withSecret(jwtSecret, issuer, remoteProvider);
+    } else {
+      return remoteProvider;
+    }
+    localProvider.setRefreshWindow(Duration.ofSeconds(jwtRefreshWindowSeconds));
+    return localProvider;
   }
 
   @Bean
@@ -51,10 +143,21 @@ public class RemoteAuthWebSecurityConfigurer {
       HttpSecurity http,
       AuthenticationManager authenticationManager,
       HttpServletRequestWrapperFilter httpServletRequestWrapperFilter,
-      RequestHeaderParamUpdateFilter requestHeaderParamUpdateFilter)
+      ObjectProvider<RequestHeaderParamUpdateFilter> requestHeaderParamUpdateFilter)
       throws Exception {
+    if (fusedFilter) {
+      List<RequestAuthenticator> authenticators =
+          List.of(
+              new BasicAuthRequestFilter(authenticationManager),
+              new JwtRequestFilter(authenticationManager),
+              new GbifAppRequestFilter(authenticationManager));
+      return SecurityUtils.gbifFilterChain(
+              http, new FusedSecurityFilter(httpServletRequestWrapperFilter, authenticators))
+          .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+          .build();
+    }
     return SecurityUtils.gbifFilterChain(
-            http, httpServletRequestWrapperFilter, requestHeaderParamUpdateFilter)
+            http, httpServletRequestWrapperFilter, requestHeaderParamUpdateFilter.getObject())
         .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
         .addFilterAfter(
             new BasicAuthRequestFilter(authenticationManager), RequestHeaderParamUpdateFilter.class)
@@ -13,11 +13,12 @@
  */
 package org.gbif.ws.remoteauth.app;
 
+import org.gbif.ws.server.filter.RequestAuthHeaders;
+import org.gbif.ws.server.filter.RequestAuthenticator;
 import org.gbif.ws.util.SecurityConstants;
 
 import java.io.IOException;
 
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.AuthenticationException;
@@ -32,7 +33,7 @@ import lombok.extern.slf4j.Slf4j;
 
 /** Intercepts all requests to look for a JWT token. */
 @Slf4j
-public class GbifAppRequestFilter extends OncePerRequestFilter {
+public class GbifAppRequestFilter extends OncePerRequestFilter implements RequestAuthenticator {
 
   private final AuthenticationManager authenticationManager;
 
@@ -41,19 +42,26 @@ public class GbifAppRequestFilter extends OncePerRequestFilter {
   }
 
   /**
-   * Performs the authentication, only if JWT token is found.
+   * Performs the authentication, only if the GBIF scheme is found.
    */
   @Override
   protected void doFilterInternal(
       HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
+    if (authenticate(request, response, RequestAuthHeaders.of(request))) {
+      filterChain.doFilter(request, response);
+    }
+  }
 
-    String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
-    if (authorization != null
-        && StringUtils.startsWith(authorization, SecurityConstants.GBIF_SCHEME_PREFIX)) {
+  @Override
+  public boolean supports(RequestAuthHeaders.Scheme scheme) {
+    return scheme == RequestAuthHeaders.Scheme.GBIF;
+  }
 
-      String gbifUser = request.getHeader(SecurityConstants.HEADER_GBIF_USER);
-      String contentMd5 = request.getHeader(SecurityConstants.HEADER_CONTENT_MD5);
+  @Override
+  public boolean authenticate(
+      HttpServletRequest request, HttpServletResponse response, RequestAuthHeaders headers) {
+    if (headers.getScheme() == RequestAuthHeaders.Scheme.GBIF) {
       String contentType = request.getHeader(HttpHeaders.CONTENT_TYPE);
       String originalRequestUrl = request.getHeader(SecurityConstants.HEADER_ORIGINAL_REQUEST_URL);
 
@@ -62,19 +70,18 @@ public class GbifAppRequestFilter extends OncePerRequestFilter {
             .setAuthentication(
                 authenticationManager.authenticate(
                     new GbifAppAuthentication(
-                        authorization,
-                        gbifUser,
-                        contentMd5,
+                        headers.getAuthorization(),
+                        headers.getGbifUser(),
+                        headers.getContentMd5(),
                         contentType,
                         request.getMethod(),
                         originalRequestUrl)));
       } catch (AuthenticationException exc) {
         SecurityContextHolder.clearContext();
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-        return;
+        return false;
       }
     }
-
-    filterChain.doFilter(request, response);
+    return true;
   }
 }
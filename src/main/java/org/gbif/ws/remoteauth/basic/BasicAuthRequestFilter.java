@@ -13,12 +13,11 @@
  */
 package org.gbif.ws.remoteauth.basic;
 
-import org.gbif.ws.util.SecurityConstants;
+import org.gbif.ws.server.filter.RequestAuthHeaders;
+import org.gbif.ws.server.filter.RequestAuthenticator;
 
 import java.io.IOException;
 
-import org.apache.commons.lang3.StringUtils;
-import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
@@ -32,7 +31,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 /** Intercepts all requests that use basic authentication. */
-public class BasicAuthRequestFilter extends OncePerRequestFilter {
+public class BasicAuthRequestFilter extends OncePerRequestFilter implements RequestAuthenticator {
 
   private final AuthenticationManager authenticationManager;
   private final BasicAuthenticationConverter authenticationConverter =
@@ -49,10 +48,20 @@ public class BasicAuthRequestFilter extends OncePerRequestFilter {
   protected void doFilterInternal(
       HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
+    if (authenticate(request, response, RequestAuthHeaders.of(request))) {
+      filterChain.doFilter(request, response);
+    }
+  }
 
-    String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
-    if (authorization != null
-        && StringUtils.startsWith(authorization, SecurityConstants.BASIC_SCHEME_PREFIX)) {
+  @Override
+  public boolean supports(RequestAuthHeaders.Scheme scheme) {
+    return scheme == RequestAuthHeaders.Scheme.BASIC;
+  }
+
+  @Override
+  public boolean authenticate(
+      HttpServletRequest request, HttpServletResponse response, RequestAuthHeaders headers) {
+    if (headers.getScheme() == RequestAuthHeaders.Scheme.BASIC) {
       try {
         UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
             authenticationConverter.convert(request);
@@ -62,10 +71,9 @@ public class BasicAuthRequestFilter extends OncePerRequestFilter {
       } catch (AuthenticationException exc) {
         SecurityContextHolder.clearContext();
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-        return;
+        return false;
       }
     }
-
-    filterChain.doFilter(request, response);
+    return true;
   }
 }
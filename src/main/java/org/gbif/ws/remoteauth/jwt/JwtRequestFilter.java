@@ -14,6 +14,8 @@
 package org.gbif.ws.remoteauth.jwt;
 
 import org.gbif.ws.security.GbifAuthenticationToken;
+import org.gbif.ws.server.filter.RequestAuthHeaders;
+import org.gbif.ws.server.filter.RequestAuthenticator;
 import org.gbif.ws.util.SecurityConstants;
 
 import java.io.IOException;
@@ -31,7 +33,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 /** Intercepts all requests to look for a JWT token. */
-public class JwtRequestFilter extends OncePerRequestFilter {
+public class JwtRequestFilter extends OncePerRequestFilter implements RequestAuthenticator {
 
   private final AuthenticationManager authenticationManager;
 
@@ -46,8 +48,31 @@ public class JwtRequestFilter extends OncePerRequestFilter {
   protected void doFilterInternal(
       HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
+    if (authenticate(request, response, RequestAuthHeaders.of(request))) {
+      filterChain.doFilter(request, response);
+    }
+  }
+
+  /**
+   * Bearer tokens and unknown schemes mentioning "bearer" are handled, the Basic and GBIF schemes
+   * never carry a JWT token. The same rule applies standalone and inside a fused filter.
+   */
+  @Override
+  public boolean supports(RequestAuthHeaders.Scheme scheme) {
+    return scheme == RequestAuthHeaders.Scheme.BEARER || scheme == RequestAuthHeaders.Scheme.OTHER;
+  }
 
-    Optional<String> token = JwtUtils.findTokenInRequest(request);
+  @Override
+  public boolean authenticate(
+      HttpServletRequest request, HttpServletResponse response, RequestAuthHeaders headers) {
+    Optional<String> token;
+    if (headers.getScheme() == RequestAuthHeaders.Scheme.BEARER) {
+      token = Optional.of(headers.getCredentials());
+    } else if (headers.getScheme() == RequestAuthHeaders.Scheme.OTHER) {
+      token = JwtUtils.findTokenInRequest(request);
+    } else {
+      token = Optional.empty();
+    }
     if (token.isPresent()) {
       try {
         GbifAuthenticationToken authentication =
@@ -62,10 +87,9 @@ public class JwtRequestFilter extends OncePerRequestFilter {
       } catch (AuthenticationException exc) {
         SecurityContextHolder.clearContext();
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-        return;
+        return false;
       }
     }
-
-    filterChain.doFilter(request, response);
+    return true;
   }
 }
@@ -0,0 +1,251 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.remoteauth.jwt;
+
+import org.gbif.ws.remoteauth.LoggedUser;
+import org.gbif.ws.security.GbifAuthenticationToken;
+import org.gbif.ws.security.GbifUserPrincipal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Verifies JWT tokens locally instead of calling the registry, see {@link
+ * JwtRemoteBasicAuthenticationProvider}.
+ * <p>
+ * Tokens must be signed with HMAC (HS256, HS384 or HS512) using a shared secret, or one of the keys
+ * of a key set selected by the "kid" token header. Secrets are Base64 encoded, as the registry
+ * signing key. The signature, expiration ("exp"), not-before ("nbf") and optionally the issuer
+ * ("iss") are checked, and the user is read from the claims ("userName" or "sub", "roles", etc.).
+ * <p>
+ * If a fallback provider is set it is used for tokens without a "roles" claim and for tokens
+ * expiring within the refresh window, so the registry can refresh or revoke them.
+ */
+@Slf4j
+public class LocalJwtAuthenticationProvider implements AuthenticationProvider {
+
+  private static final ObjectMapper OBJECT_MAPPER =
+      new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+  private static final Map<String, String> HMAC_ALGORITHMS =
+      Map.of("HS256", "HmacSHA256", "HS384", "HmacSHA384", "HS512", "HmacSHA512");
+
+  private static final Duration CLOCK_SKEW = Duration.ofSeconds(30);
+
+  private static final String ROLES_CLAIM = "roles";
+
+  private final Map<String, byte[]> keys;
+  private final String issuer;
+  private final AuthenticationProvider fallbackProvider;
+  private Duration refreshWindow = Duration.ZERO;
+
+  /**
+   * @param keys Base64 encoded secrets by key id
+   * @param issuer expected issuer, not checked if null
+   * @param fallbackProvider provider used to refresh tokens, can be null
+   */
+  public LocalJwtAuthenticationProvider(
+      Map<String, String> keys,
+      @Nullable String issuer,
+      @Nullable AuthenticationProvider fallbackProvider) {
+    Objects.requireNonNull(keys, "keys shall be provided");
+    if (keys.isEmpty()) {
+      throw new IllegalArgumentException("At least one JWT key is required");
+    }
+    Map<String, byte[]> decodedKeys = new LinkedHashMap<>();
+    keys.forEach((kid, secret) -> decodedKeys.put(kid, Base64.getDecoder().decode(secret.trim())));
+    this.keys = Collections.unmodifiableMap(decodedKeys);
+    this.issuer = issuer;
+    this.fallbackProvider = fallbackProvider;
+  }
+
+  /** Creates a provider verifying tokens with a single shared secret. */
+  public static LocalJwtAuthenticationProvider withSecret(
+      String secret,
+      @Nullable String issuer,
+      @Nullable AuthenticationProvider fallbackProvider) {
+    return new LocalJwtAuthenticationProvider(
+        Collections.singletonMap("", secret), issuer, fallbackProvider);
+  }
+
+  /**
+   * Creates a provider verifying tokens with the keys of a properties file, each entry being a key
+   * id and its Base64 encoded secret.
+   */
+  public static LocalJwtAuthenticationProvider withKeySet(
+      Path keySetFile,
+      @Nullable String issuer,
+      @Nullable AuthenticationProvider fallbackProvider)
+      throws IOException {
+    Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(keySetFile)) {
+      properties.load(in);
+    }
+    Map<String, String> keys = new LinkedHashMap<>();
+    properties.stringPropertyNames().forEach(kid -> keys.put(kid, properties.getProperty(kid)));
+    return new LocalJwtAuthenticationProvider(keys, issuer, fallbackProvider);
+  }
+
+  /**
+   * Tokens expiring within this window are passed to the fallback provider to be refreshed.
+   */
+  public void setRefreshWindow(Duration refreshWindow) {
+    this.refreshWindow = Objects.requireNonNull(refreshWindow);
+  }
+
+  @Override
+  public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+    String token = ((JwtAuthentication) authentication).getToken();
+    JsonNode claims = verify(token);
+
+    long expiresAt = claims.path("exp").asLong();
+    boolean refresh =
+        expiresAt * 1000 - System.currentTimeMillis() < refreshWindow.toMillis()
+            || !claims.has(ROLES_CLAIM);
+    if (refresh && fallbackProvider != null) {
+      log.debug("Delegating JWT authentication to {}", fallbackProvider.getClass().getSimpleName());
+      return fallbackProvider.authenticate(authentication);
+    }
+
+    LoggedUser loggedUser;
+    try {
+      loggedUser = OBJECT_MAPPER.treeToValue(claims, LoggedUser.class);
+    } catch (IOException | IllegalArgumentException e) {
+      throw new BadCredentialsException("Invalid JWT claims", e);
+    }
+    if (loggedUser.getUserName() == null) {
+      loggedUser.setUserName(claims.path("sub").textValue());
+    }
+    if (loggedUser.getUserName() == null) {
+      throw new BadCredentialsException("JWT token without user name");
+    }
+
+    GbifUserPrincipal gbifUserPrincipal;
+    try {
+      gbifUserPrincipal = new GbifUserPrincipal(loggedUser.toGbifUser());
+    } catch (IllegalArgumentException e) {
+      throw new BadCredentialsException("Unknown role in JWT token", e);
+    }
+    return new GbifAuthenticationToken(
+        gbifUserPrincipal, gbifUserPrincipal.getAuthorities(), token);
+  }
+
+  @Override
+  public boolean supports(Class<?> authentication) {
+    return JwtAuthentication.class.isAssignableFrom(authentication);
+  }
+
+  /**
+   * Checks the signature and validity of the token.
+   *
+   * @return the token claims
+   */
+  private JsonNode verify(String token) {
+    int firstDot = token.indexOf('.');
+    int lastDot = token.lastIndexOf('.');
+    if (firstDot < 0 || firstDot == lastDot || token.indexOf('.', firstDot + 1) != lastDot) {
+      throw new BadCredentialsException("Malformed JWT token");
+    }
+
+    JsonNode header;
+    JsonNode claims;
+    byte[] signature;
+    try {
+      Base64.Decoder decoder = Base64.getUrlDecoder();
+      header = OBJECT_MAPPER.readTree(decoder.decode(token.substring(0, firstDot)));
+      claims = OBJECT_MAPPER.readTree(decoder.decode(token.substring(firstDot + 1, lastDot)));
+      signature = decoder.decode(token.substring(lastDot + 1));
+    } catch (IOException | IllegalArgumentException e) {
+      throw new BadCredentialsException("Malformed JWT token", e);
+    }
+    if (!header.isObject() || !claims.isObject()) {
+      throw new BadCredentialsException("Malformed JWT token");
+    }
+
+    String algorithm = HMAC_ALGORITHMS.get(header.path("alg").asText());
+    if (algorithm == null) {
+      throw new BadCredentialsException("Unsupported JWT algorithm " + header.path("alg"));
+    }
+
+    byte[] signedContent = token.substring(0, lastDot).getBytes(StandardCharsets.US_ASCII);
+    String kid = header.path("kid").textValue();
+    boolean valid;
+    if (kid != null && keys.containsKey(kid)) {
+      valid = isValidSignature(algorithm, keys.get(kid), signedContent, signature);
+    } else {
+      valid = false;
+      for (byte[] key : keys.values()) {
+        if (isValidSignature(algorithm, key, signedContent, signature)) {
+          valid = true;
+          break;
+        }
+      }
+    }
+    if (!valid) {
+      throw new BadCredentialsException("Invalid JWT signature");
+    }
+
+    long now = System.currentTimeMillis();
+    if (!claims.path("exp").canConvertToLong()
+        || claims.path("exp").asLong() * 1000 + CLOCK_SKEW.toMillis() < now) {
+      throw new CredentialsExpiredException("JWT token expired");
+    }
+    if (claims.has("nbf") && claims.path("nbf").asLong() * 1000 - CLOCK_SKEW.toMillis() > now) {
+      throw new BadCredentialsException("JWT token not valid yet");
+    }
+    if (issuer != null && !issuer.equals(claims.path("iss").textValue())) {
+      throw new BadCredentialsException("Unexpected JWT issuer");
+    }
+    return claims;
+  }
+
+  private static boolean isValidSignature(
+      String algorithm, byte[] key, byte[] signedContent, byte[] signature) {
+    try {
+      Mac mac = Mac.getInstance(algorithm);
+      mac.init(new SecretKeySpec(key, algorithm));
+      return MessageDigest.isEqual(mac.doFinal(signedContent), signature);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Can't verify JWT signature", e);
+    }
+  }
+}
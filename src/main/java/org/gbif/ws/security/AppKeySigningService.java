@@ -31,23 +31,18 @@ public class AppKeySigningService extends BaseSigningService {
   }
 
   /**
-   * Generates a Base64 encoded HMAC-SHA1 signature of the passed request data with the secret key
-   * associated with the given application key. See Message Authentication Code specs
-   * http://tools.ietf.org/html/rfc2104
+   * Signatures are generated with the secret key associated with the given application key.
    *
-   * @param requestDataToSign the request data to be signed
-   * @param appKey            the application key
+   * @param appKey the application key
    */
   @Override
-  public String buildSignature(RequestDataToSign requestDataToSign, String appKey) {
+  protected String resolveSecretKey(String appKey) {
     // find private key for this app
     final String secretKey = keyStore.getPrivateKey(appKey);
     if (secretKey == null) {
       LOG.error("Unknown application key: {}", appKey);
       throw new PrivateKeyNotFoundException();
     }
-
-    // sign
-    return super.buildSignature(requestDataToSign, secretKey);
+    return secretKey;
   }
 }
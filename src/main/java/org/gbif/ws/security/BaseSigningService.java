@@ -13,18 +13,44 @@
  */
 package org.gbif.ws.security;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.SecretKeySpec;
 
+/**
+ * Base HMAC-SHA1 signing service.
+ * Mac instances are initialised once per secret key and kept per thread together with the buffers
+ * used to encode the string to sign, so signing a request does not look up the provider nor
+ * initialise the key again.
+ * <p>
+ * Signatures are built and verified the same way, {@link #resolveSecretKey(String)} being the only
+ * extension point, to choose the secret key used for a key.
+ */
 public abstract class BaseSigningService implements SigningService {
 
   private static final String ALGORITHM = "HmacSHA1";
 
+  // length of the digests, and of the signatures once Base64 encoded
+  private static final int DIGEST_LENGTH = macLength();
+  private static final int SIGNATURE_LENGTH = 4 * ((DIGEST_LENGTH + 2) / 3);
+
+  // the Mac instances of a thread are discarded if it has seen more keys than this
+  private static final int MAX_KEYS_PER_THREAD = 64;
+
+  private static final ThreadLocal<SigningContext> SIGNING_CONTEXT =
+      ThreadLocal.withInitial(SigningContext::new);
+
   /**
    * Generates a Base64 encoded HMAC-SHA1 signature of the passed request data with the secret key.
    * See Message Authentication Code specs http://tools.ietf.org/html/rfc2104
@@ -33,20 +59,124 @@ public abstract class BaseSigningService implements SigningService {
    * @param secretKey         the secret key
    */
   @Override
-  public String buildSignature(RequestDataToSign requestDataToSign, String secretKey) {
+  public final String buildSignature(RequestDataToSign requestDataToSign, String secretKey) {
+    SigningContext context = sign(requestDataToSign, secretKey);
+    return new String(context.signature, 0, SIGNATURE_LENGTH, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Compares the signature with the one generated for the request data in constant time, without
+   * creating an intermediate String.
+   */
+  @Override
+  public final boolean isValidSignature(
+      RequestDataToSign requestDataToSign, String secretKey, String signature) {
+    if (signature == null || signature.length() != SIGNATURE_LENGTH) {
+      return false;
+    }
+    SigningContext context = sign(requestDataToSign, secretKey);
+
+    int diff = 0;
+    for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+      diff |= context.signature[i] ^ signature.charAt(i);
+    }
+    return diff == 0;
+  }
+
+  /**
+   * Gets the secret key used to sign, by default the key passed in is the secret key itself.
+   * Used both to build and to verify signatures.
+   */
+  protected String resolveSecretKey(String key) {
+    return key;
+  }
+
+  /**
+   * Signs the request data with the resolved secret key, in the context of the current thread.
+   */
+  private SigningContext sign(RequestDataToSign requestDataToSign, String key) {
+    SigningContext context = SIGNING_CONTEXT.get();
+    context.sign(requestDataToSign, resolveSecretKey(key));
+    return context;
+  }
+
+  private static int macLength() {
     try {
-      Mac mac = Mac.getInstance(ALGORITHM);
-      SecretKeySpec secret =
-          new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
-      mac.init(secret);
-      byte[] digest =
-          mac.doFinal(requestDataToSign.stringToSign().getBytes(StandardCharsets.UTF_8));
-
-      return new String(Base64.getEncoder().encode(digest), StandardCharsets.US_ASCII);
+      return Mac.getInstance(ALGORITHM).getMacLength();
     } catch (NoSuchAlgorithmException e) {
-      throw new RuntimeException("Cant find " + ALGORITHM + " message digester", e);
-    } catch (InvalidKeyException e) {
-      throw new RuntimeException("Invalid secret key " + secretKey, e);
+      throw new IllegalStateException("Cant find " + ALGORITHM + " message digester", e);
+    }
+  }
+
+  /**
+   * Mac instances and buffers confined to a single thread.
+   */
+  private static final class SigningContext {
+
+    private final Map<String, Mac> macs = new HashMap<>();
+    private final StringBuilder stringToSign = new StringBuilder(256);
+    private final CharsetEncoder encoder =
+        StandardCharsets.UTF_8
+            .newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private ByteBuffer bytesToSign = ByteBuffer.allocate(512);
+    private final byte[] digest = new byte[DIGEST_LENGTH];
+    private final byte[] signature = new byte[SIGNATURE_LENGTH];
+
+    /**
+     * Signs the request data, the Base64 encoded signature is left in {@link #signature}.
+     */
+    void sign(RequestDataToSign requestDataToSign, String secretKey) {
+      Mac mac = getMac(secretKey);
+
+      stringToSign.setLength(0);
+      requestDataToSign.appendStringToSign(stringToSign);
+      mac.update(encode(stringToSign));
+
+      try {
+        mac.doFinal(digest, 0);
+      } catch (ShortBufferException e) {
+        throw new IllegalStateException("Unexpected " + ALGORITHM + " digest length", e);
+      }
+      Base64.getEncoder().encode(digest, signature);
+    }
+
+    private ByteBuffer encode(CharSequence chars) {
+      int maxLength = (int) (chars.length() * encoder.maxBytesPerChar());
+      if (bytesToSign.capacity() < maxLength) {
+        bytesToSign = ByteBuffer.allocate(maxLength);
+      }
+      bytesToSign.clear();
+      encoder.reset();
+      encoder.encode(CharBuffer.wrap(chars), bytesToSign, true);
+      encoder.flush(bytesToSign);
+      bytesToSign.flip();
+      return bytesToSign;
+    }
+
+    private Mac getMac(String secretKey) {
+      Mac mac = macs.get(secretKey);
+      if (mac == null) {
+        if (macs.size() >= MAX_KEYS_PER_THREAD) {
+          macs.clear();
+        }
+        mac = newMac(secretKey);
+        macs.put(secretKey, mac);
+      }
+      return mac;
+    }
+
+    private static Mac newMac(String secretKey) {
+      try {
+        Mac mac = Mac.getInstance(ALGORITHM);
+        mac.init(new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        return mac;
+      } catch (NoSuchAlgorithmException e) {
+        throw new RuntimeException("Cant find " + ALGORITHM + " message digester", e);
+      } catch (InvalidKeyException e) {
+        throw new RuntimeException("Invalid secret key " + secretKey, e);
+      }
     }
   }
 }
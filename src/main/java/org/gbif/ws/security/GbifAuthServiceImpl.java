@@ -14,8 +14,10 @@
 package org.gbif.ws.security;
 
 import org.gbif.ws.server.GbifHttpServletRequestWrapper;
+import org.gbif.ws.util.ExpiringCache;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.Objects;
 import java.util.regex.Pattern;
 
@@ -23,6 +25,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
 
@@ -58,6 +61,15 @@ import static org.gbif.ws.util.SecurityConstants.HEADER_ORIGINAL_REQUEST_URL;
  * headers are added which are used to sign and digest the message. <br> x-gbif-user is added to
  * transport a proxied user in which the application is acting. <br> Content-MD5 is added if a body
  * entity exists. See Content-MD5 header specs: http://www.w3.org/Protocols/rfc2616/rfc2616-sec14.html#sec14.15
+ *
+ * <p>Verified signatures can optionally be cached (gbif.ws.security.signatureCache.maxSize), so
+ * clients repeating exactly the same signed request don't trigger a key lookup and HMAC every time.
+ * Only valid signatures are cached, and the cache key covers the application key, the signature and
+ * the complete string to sign.
+ * <p>A cache hit skips the lookup of the application key, so a revoked or rotated key keeps
+ * authenticating the requests it signed until their entries expire
+ * (gbif.ws.security.signatureCache.expireAfterSeconds). Call
+ * {@link #invalidateCachedSignatures(String)} when a key changes to end this at once.
  */
 @Service
 public class GbifAuthServiceImpl implements GbifAuthService {
@@ -69,14 +81,38 @@ public class GbifAuthServiceImpl implements GbifAuthService {
   private final SigningService signingService;
   private final Md5EncodeService md5EncodeService;
   private final AppKeyProvider appKeyProvider;
+  // verified signatures to the application key that signed them
+  private final ExpiringCache<String, String> signatureCache;
 
   public GbifAuthServiceImpl(
       SigningService signingService,
       Md5EncodeService md5EncodeService,
-      @Autowired(required = false) AppKeyProvider appKeyProvider) {
+      AppKeyProvider appKeyProvider) {
+    this(signingService, md5EncodeService, appKeyProvider, 0, 0);
+  }
+
+  /**
+   * Same as {@link #GbifAuthServiceImpl(SigningService, Md5EncodeService, AppKeyProvider)},
+   * caching verified signatures if the maximum size is positive. Cached signatures stay valid for
+   * the expiration time even if their application key is revoked meanwhile, unless
+   * {@link #invalidateCachedSignatures(String)} is called.
+   */
+  @Autowired
+  public GbifAuthServiceImpl(
+      SigningService signingService,
+      Md5EncodeService md5EncodeService,
+      @Autowired(required = false) AppKeyProvider appKeyProvider,
+      @Value("${gbif.ws.security.signatureCache.maxSize:0}") int signatureCacheMaxSize,
+      @Value("${gbif.ws.security.signatureCache.expireAfterSeconds:60}")
+          long signatureCacheExpireAfterSeconds) {
     this.signingService = signingService;
     this.md5EncodeService = md5EncodeService;
     this.appKeyProvider = appKeyProvider;
+    this.signatureCache =
+        signatureCacheMaxSize > 0
+            ? new ExpiringCache<>(
+                signatureCacheMaxSize, Duration.ofSeconds(signatureCacheExpireAfterSeconds))
+            : null;
   }
 
   @Override
@@ -102,18 +138,31 @@ public class GbifAuthServiceImpl implements GbifAuthService {
     }
 
     final RequestDataToSign requestDataToSign = buildRequestDataToSign(request);
-    LOG.debug("Request data to sign: {}", requestDataToSign.stringToSign());
-    // sign
-    final String signature;
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Request data to sign: {}", requestDataToSign.stringToSign());
+    }
+    final String cacheKey =
+        signatureCache != null
+            ? appKey + '\n' + signatureFound + '\n' + requestDataToSign.stringToSign()
+            : null;
+    if (cacheKey != null && signatureCache.get(cacheKey) != null) {
+      LOG.debug("Trusted application with previously verified signature");
+      return true;
+    }
+
+    // sign and compare signatures
+    final boolean validSignature;
     try {
-      signature = signingService.buildSignature(requestDataToSign, appKey);
+      validSignature = signingService.isValidSignature(requestDataToSign, appKey, signatureFound);
     } catch (PrivateKeyNotFoundException e) {
       LOG.debug("Private key was not found for app key {}", appKey);
       return false;
     }
-    // compare signatures
-    if (signatureFound.equals(signature)) {
+    if (validSignature) {
       LOG.debug("Trusted application with matching signatures");
+      if (cacheKey != null) {
+        signatureCache.put(cacheKey, appKey);
+      }
       return true;
     }
     LOG.info("Invalid signature: {}", authHeader);
@@ -121,6 +170,39 @@ public class GbifAuthServiceImpl implements GbifAuthService {
     return false;
   }
 
+  /**
+   * Removes the cached signatures of an application key, e.g. after the key has been revoked or
+   * its secret changed.
+   */
+  public void invalidateCachedSignatures(String appKey) {
+    if (signatureCache != null) {
+      signatureCache.invalidateIf(cachedAppKey -> cachedAppKey.equals(appKey));
+    }
+  }
+
+  /**
+   * Removes all cached signatures.
+   */
+  public void invalidateAllCachedSignatures() {
+    if (signatureCache != null) {
+      signatureCache.invalidateAll();
+    }
+  }
+
+  /**
+   * @return number of requests validated using the signature cache, 0 if the cache is disabled
+   */
+  public long getSignatureCacheHitCount() {
+    return signatureCache != null ? signatureCache.getHitCount() : 0;
+  }
+
+  /**
+   * @return number of requests whose signature had to be verified, 0 if the cache is disabled
+   */
+  public long getSignatureCacheMissCount() {
+    return signatureCache != null ? signatureCache.getMissCount() : 0;
+  }
+
   private RequestDataToSign buildRequestDataToSign(final GbifHttpServletRequestWrapper request) {
     final HttpHeaders headers = request.getHttpHeaders();
     final RequestDataToSign dataToSign = new RequestDataToSign();
@@ -168,21 +250,17 @@ public class GbifAuthServiceImpl implements GbifAuthService {
     Objects.requireNonNull(appKey, "To sign the request a single application key is required");
     // first add custom GBIF headers so we can use them to build the string to sign
     // the proxied username
-    request.getHttpHeaders().add(HEADER_GBIF_USER, username);
+    request.setHeader(HEADER_GBIF_USER, username);
 
     // the canonical path header
-    request
-        .getHttpHeaders()
-        .add(HEADER_ORIGINAL_REQUEST_URL, getCanonicalizedPath(request.getRequestURI()));
+    request.setHeader(HEADER_ORIGINAL_REQUEST_URL, getCanonicalizedPath(request.getRequestURI()));
 
-    String content = null;
-    if (request.getContent() != null) {
-      content = request.getContent();
-    }
+    // read once, a content spilled to disk is decoded on each call
+    String content = request.getContent();
 
     // adds content md5
     if (StringUtils.isNotEmpty(content)) {
-      request.getHttpHeaders().add(HEADER_CONTENT_MD5, md5EncodeService.encode(content));
+      request.setHeader(HEADER_CONTENT_MD5, md5EncodeService.encode(content));
     }
 
     // build the unique request data object to sign
@@ -205,7 +283,7 @@ public class GbifAuthServiceImpl implements GbifAuthService {
         request.getRequestURI(),
         username,
         header);
-    request.getHttpHeaders().add(HttpHeaders.AUTHORIZATION, header);
+    request.setHeader(HttpHeaders.AUTHORIZATION, header);
 
     return request;
   }
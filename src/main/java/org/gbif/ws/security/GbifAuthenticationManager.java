@@ -13,6 +13,8 @@
  */
 package org.gbif.ws.security;
 
+import org.gbif.ws.server.filter.RequestAuthHeaders;
+
 import jakarta.servlet.http.HttpServletRequest;
 
 /**
@@ -21,4 +23,12 @@ import jakarta.servlet.http.HttpServletRequest;
 public interface GbifAuthenticationManager {
 
   GbifAuthentication authenticate(HttpServletRequest request);
+
+  /**
+   * Same as {@link #authenticate(HttpServletRequest)}, using the already parsed authentication
+   * headers of the request.
+   */
+  default GbifAuthentication authenticate(HttpServletRequest request, RequestAuthHeaders headers) {
+    return authenticate(request);
+  }
 }
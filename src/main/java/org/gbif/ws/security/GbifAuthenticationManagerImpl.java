@@ -17,9 +17,15 @@ import org.gbif.api.model.common.GbifUser;
 import org.gbif.api.service.common.IdentityAccessService;
 import org.gbif.ws.WebApplicationException;
 import org.gbif.ws.server.GbifHttpServletRequestWrapper;
+import org.gbif.ws.server.filter.RequestAuthHeaders;
+import org.gbif.ws.util.ExpiringCache;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.Principal;
+import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
@@ -30,7 +36,8 @@ import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpHeaders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
@@ -40,12 +47,19 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.constraints.NotNull;
 
 import static org.gbif.ws.util.SecurityConstants.BASIC_AUTH;
-import static org.gbif.ws.util.SecurityConstants.BASIC_SCHEME_PREFIX;
 import static org.gbif.ws.util.SecurityConstants.GBIF_SCHEME;
-import static org.gbif.ws.util.SecurityConstants.GBIF_SCHEME_PREFIX;
 import static org.gbif.ws.util.SecurityConstants.HEADER_GBIF_USER;
 import static org.gbif.ws.util.SecurityConstants.IPT_SCHEME_PREFIX;
 
+/**
+ * Default {@link GbifAuthenticationManager} supporting the GBIF and Basic schemes.
+ *
+ * <p>Successful Basic authentications can optionally be cached
+ * (gbif.ws.security.credentialCache.maxSize), so scripted clients sending the same credentials on
+ * every call don't pay for the password verification each time. The cache is keyed by a salted
+ * SHA-256 digest of the credentials, the plain password is never kept. Entries of a user should be
+ * invalidated with {@link #invalidateCachedCredentials(String)} when the password or roles change.
+ */
 @Component
 public class GbifAuthenticationManagerImpl implements GbifAuthenticationManager {
 
@@ -55,6 +69,8 @@ public class GbifAuthenticationManagerImpl implements GbifAuthenticationManager
 
   private final IdentityAccessService identityAccessService;
   private final GbifAuthService authService;
+  private final ExpiringCache<String, CachedCredentials> credentialCache;
+  private final byte[] credentialSalt;
 
   /**
    * In case {@link GbifAuthService} is not provided, this class will reject all authentications
@@ -62,9 +78,33 @@ public class GbifAuthenticationManagerImpl implements GbifAuthenticationManager
    */
   public GbifAuthenticationManagerImpl(
       @NotNull IdentityAccessService identityAccessService, @Nullable GbifAuthService authService) {
+    this(identityAccessService, authService, 0, 0);
+  }
+
+  /**
+   * Same as {@link #GbifAuthenticationManagerImpl(IdentityAccessService, GbifAuthService)}, caching
+   * successful Basic authentications if the maximum size is positive.
+   */
+  @Autowired
+  public GbifAuthenticationManagerImpl(
+      @NotNull IdentityAccessService identityAccessService,
+      @Nullable GbifAuthService authService,
+      @Value("${gbif.ws.security.credentialCache.maxSize:0}") int credentialCacheMaxSize,
+      @Value("${gbif.ws.security.credentialCache.expireAfterSeconds:300}")
+          long credentialCacheExpireAfterSeconds) {
     Objects.requireNonNull(identityAccessService, "identityAccessService shall be provided");
     this.identityAccessService = identityAccessService;
     this.authService = authService;
+    if (credentialCacheMaxSize > 0) {
+      this.credentialCache =
+          new ExpiringCache<>(
+              credentialCacheMaxSize, Duration.ofSeconds(credentialCacheExpireAfterSeconds));
+      this.credentialSalt = new byte[32];
+      new SecureRandom().nextBytes(credentialSalt);
+    } else {
+      this.credentialCache = null;
+      this.credentialSalt = null;
+    }
   }
 
   /**
@@ -73,17 +113,20 @@ public class GbifAuthenticationManagerImpl implements GbifAuthenticationManager
    */
   @Override
   public GbifAuthentication authenticate(final HttpServletRequest request) {
-    // Extract authentication credentials
-    final String authentication = request.getHeader(HttpHeaders.AUTHORIZATION);
-
-    if (authentication != null) {
-      if (authentication.startsWith(BASIC_SCHEME_PREFIX)) {
-        return basicAuthentication(authentication.substring(BASIC_SCHEME_PREFIX.length()));
-      } else if (authentication.startsWith(GBIF_SCHEME_PREFIX)) {
-        return gbifAuthentication(request);
-      }
+    return authenticate(request, RequestAuthHeaders.of(request));
+  }
+
+  @Override
+  public GbifAuthentication authenticate(
+      final HttpServletRequest request, final RequestAuthHeaders headers) {
+    switch (headers.getScheme()) {
+      case BASIC:
+        return basicAuthentication(headers.getCredentials());
+      case GBIF:
+        return gbifAuthentication(request, headers.getGbifUser());
+      default:
+        return getAnonymous();
     }
-    return getAnonymous();
   }
 
   /**
@@ -128,6 +171,17 @@ public class GbifAuthenticationManagerImpl implements GbifAuthenticationManager
       // no UUID, continue with regular authentication
     }
 
+    final String cacheKey =
+        credentialCache != null ? credentialsDigest(username, password) : null;
+    if (cacheKey != null) {
+      CachedCredentials cached = credentialCache.get(cacheKey);
+      if (cached != null) {
+        LOG.debug("Authenticating user {} via scheme {} from cache", username, BASIC_AUTH);
+        return new GbifAuthenticationToken(
+            new GbifUserPrincipal(cached.user), BASIC_AUTH, cached.authorities);
+      }
+    }
+
     GbifUser user = identityAccessService.authenticate(username, password);
     if (user == null) {
       throw new WebApplicationException(
@@ -135,14 +189,58 @@ public class GbifAuthenticationManagerImpl implements GbifAuthenticationManager
     }
 
     LOG.debug("Authenticating user {} via scheme {}", username, BASIC_AUTH);
-    return getAuthenticated(user, BASIC_AUTH);
+    final List<SimpleGrantedAuthority> authorities = List.copyOf(getAuthorities(user));
+    if (cacheKey != null) {
+      credentialCache.put(cacheKey, new CachedCredentials(username, user, authorities));
+    }
+    return new GbifAuthenticationToken(new GbifUserPrincipal(user), BASIC_AUTH, authorities);
+  }
+
+  /**
+   * Removes the cached Basic authentications of a user, e.g. after a password or role change.
+   * The user can be given by any identifier accepted at login: the user name or the email.
+   */
+  public void invalidateCachedCredentials(String username) {
+    if (credentialCache != null && username != null) {
+      credentialCache.invalidateIf(
+          cached ->
+              username.equals(cached.username)
+                  || username.equals(cached.user.getUserName())
+                  || username.equalsIgnoreCase(cached.user.getEmail()));
+    }
+  }
+
+  /**
+   * Removes all cached Basic authentications.
+   */
+  public void invalidateAllCachedCredentials() {
+    if (credentialCache != null) {
+      credentialCache.invalidateAll();
+    }
+  }
+
+  /**
+   * Salted digest of the credentials used as cache key, so that no plain password is kept.
+   */
+  private String credentialsDigest(String username, String password) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(credentialSalt);
+      digest.update(username.getBytes(StandardCharsets.UTF_8));
+      // separator so that user "ab" with password "c" differs from user "a" with password "bc"
+      digest.update((byte) 0);
+      digest.update(password.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 digest is not available", e);
+    }
   }
 
   /**
    * GBIF authentication (when the Authorization header scheme is 'GBIF').
    */
-  private GbifAuthentication gbifAuthentication(final HttpServletRequest request) {
-    String username = request.getHeader(HEADER_GBIF_USER);
+  private GbifAuthentication gbifAuthentication(
+      final HttpServletRequest request, final String username) {
     if (StringUtils.isEmpty(username)) {
       LOG.warn("Missing gbif username header {}", HEADER_GBIF_USER);
       throw new WebApplicationException("Missing gbif username header", HttpStatus.BAD_REQUEST);
@@ -189,13 +287,31 @@ public class GbifAuthenticationManagerImpl implements GbifAuthenticationManager
    */
   private GbifAuthentication getAuthenticated(
       final GbifUser user, final String authenticationScheme) {
-    final List<SimpleGrantedAuthority> authorities =
-        user.getRoles().stream()
-            .map(Enum::name)
-            .map(SimpleGrantedAuthority::new)
-            .collect(Collectors.toList());
-
     return new GbifAuthenticationToken(
-        new GbifUserPrincipal(user), authenticationScheme, authorities);
+        new GbifUserPrincipal(user), authenticationScheme, getAuthorities(user));
+  }
+
+  private static List<SimpleGrantedAuthority> getAuthorities(final GbifUser user) {
+    return user.getRoles().stream()
+        .map(Enum::name)
+        .map(SimpleGrantedAuthority::new)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Result of a successful Basic authentication.
+   */
+  private static final class CachedCredentials {
+
+    private final String username;
+    private final GbifUser user;
+    private final List<SimpleGrantedAuthority> authorities;
+
+    private CachedCredentials(
+        String username, GbifUser user, List<SimpleGrantedAuthority> authorities) {
+      this.username = username;
+      this.user = user;
+      this.authorities = authorities;
+    }
   }
 }
@@ -14,10 +14,15 @@
 package org.gbif.ws.security;
 
 import org.gbif.ws.server.filter.AppIdentityFilter;
+import org.gbif.ws.server.filter.FusedSecurityFilter;
 import org.gbif.ws.server.filter.HttpServletRequestWrapperFilter;
 import org.gbif.ws.server.filter.IdentityFilter;
 import org.gbif.ws.server.filter.RequestHeaderParamUpdateFilter;
 
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
@@ -31,6 +36,8 @@ import org.springframework.web.cors.CorsConfigurationSource;
 /**
  * Security Adapter that disables the authentication redirect and use GBIF identity filters for secure endpoints.
  * UserDetailsService and PasswordEncoder must be supplied by the SpringContext.
+ * Setting gbif.ws.security.fusedFilter runs the identity filters inside a single
+ * {@link FusedSecurityFilter}.
  * This class is not annotated to avoid automatic instantiation. To use it create a subclass of it:
  * <pre>
  *   @Configuration
@@ -47,6 +54,9 @@ import org.springframework.web.cors.CorsConfigurationSource;
  */
 public class NoAuthWebSecurityConfigurer {
 
+  @Value("${gbif.ws.security.fusedFilter:false}")
+  private boolean fusedFilter;
+
   @Bean
   public AuthenticationManager authenticationManager(
       UserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
@@ -60,12 +70,20 @@ public class NoAuthWebSecurityConfigurer {
   public SecurityFilterChain securityFilterChain(
       HttpSecurity http,
       HttpServletRequestWrapperFilter httpServletRequestWrapperFilter,
-      RequestHeaderParamUpdateFilter requestHeaderParamUpdateFilter,
+      ObjectProvider<RequestHeaderParamUpdateFilter> requestHeaderParamUpdateFilter,
       IdentityFilter identityFilter,
       AppIdentityFilter appIdentityFilter)
       throws Exception {
+    if (fusedFilter) {
+      return SecurityUtils.gbifFilterChain(
+              http,
+              new FusedSecurityFilter(
+                  httpServletRequestWrapperFilter, List.of(identityFilter, appIdentityFilter)))
+          .authorizeHttpRequests(auth -> auth.anyRequest().authenticated())
+          .build();
+    }
     return SecurityUtils.gbifFilterChain(
-            http, httpServletRequestWrapperFilter, requestHeaderParamUpdateFilter)
+            http, httpServletRequestWrapperFilter, requestHeaderParamUpdateFilter.getObject())
         .authorizeHttpRequests(auth -> auth.anyRequest().authenticated())
         .addFilterAfter(identityFilter, RequestHeaderParamUpdateFilter.class)
         .addFilterAfter(appIdentityFilter, IdentityFilter.class)
@@ -84,7 +84,14 @@ public class RequestDataToSign {
    */
   public String stringToSign() {
     StringBuilder sb = new StringBuilder();
+    appendStringToSign(sb);
+    return sb.toString();
+  }
 
+  /**
+   * Appends the string to sign to the builder, see {@link #stringToSign()}.
+   */
+  public void appendStringToSign(StringBuilder sb) {
     sb.append(method);
     sb.append('\n');
     sb.append(url);
@@ -98,7 +105,5 @@ public class RequestDataToSign {
     }
     sb.append('\n');
     sb.append(user);
-
-    return sb.toString();
   }
 }
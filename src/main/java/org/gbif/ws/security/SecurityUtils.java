@@ -13,6 +13,7 @@
  */
 package org.gbif.ws.security;
 
+import org.gbif.ws.server.filter.FusedSecurityFilter;
 import org.gbif.ws.server.filter.HttpServletRequestWrapperFilter;
 import org.gbif.ws.server.filter.RequestHeaderParamUpdateFilter;
 
@@ -69,6 +70,19 @@ public class SecurityUtils {
         .sessionManagement(smc -> smc.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
   }
 
+  /**
+   * Configures the basic settings of the HttpSecurity with a single {@link FusedSecurityFilter}
+   * instead of the separate request wrapper, header update and authentication filters.
+   */
+  public static HttpSecurity gbifFilterChain(HttpSecurity http, FusedSecurityFilter fusedFilter)
+      throws Exception {
+    return http.httpBasic(AbstractHttpConfigurer::disable)
+        .addFilterAfter(fusedFilter, CsrfFilter.class)
+        .cors(c -> c.configurationSource(corsAllOriginsAndMethodsConfiguration()))
+        .csrf(AbstractHttpConfigurer::disable)
+        .sessionManagement(smc -> smc.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+  }
+
   /**
    * Creates a filters with authentication disabled.
    */
@@ -16,4 +16,12 @@ package org.gbif.ws.security;
 public interface SigningService {
 
   String buildSignature(RequestDataToSign requestDataToSign, String key);
+
+  /**
+   * Checks if the signature matches the one built for the request data.
+   */
+  default boolean isValidSignature(
+      RequestDataToSign requestDataToSign, String key, String signature) {
+    return signature != null && signature.equals(buildSignature(requestDataToSign, key));
+  }
 }
@@ -13,127 +13,326 @@
  */
 package org.gbif.ws.server;
 
+import org.gbif.ws.server.filter.RequestAuthHeaders;
+
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.util.AbstractMap;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpHeaders;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.MultiValueMap;
 
 import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 
-public class GbifHttpServletRequestWrapper extends HttpServletRequestWrapper {
+/**
+ * Request wrapper which can buffer the content, so it can be read more than once, and override
+ * headers.
+ * <p>
+ * The content is buffered as bytes in a {@link ReplayableRequestBody}: small bodies are kept in
+ * memory, larger ones are spilled to a temporary file. {@link #getInputStream()} replays the bytes
+ * as received, {@link #close()} releases the buffer once the request has been handled.
+ * <p>
+ * Headers are not copied: they are read from the wrapped request unless they have been overridden
+ * with {@link #setHeader(String, String)} or {@link #addHeader(String, String)}, in which case only
+ * the overridden header is copied. {@link #getHttpHeaders()} is a read-only view of the resulting
+ * headers.
+ */
+public class GbifHttpServletRequestWrapper extends HttpServletRequestWrapper implements Closeable {
+
+  private static final String READ_ONLY_HEADERS =
+      "Request headers are read-only, use GbifHttpServletRequestWrapper.setHeader or addHeader";
 
   private String content;
 
-  private HttpHeaders httpHeaders;
+  private ReplayableRequestBody body;
 
-  private HttpServletRequest wrappedRequest;
+  // headers overridden in this wrapper, created on the first override
+  private HttpHeaders headerOverrides;
+
+  private HttpHeaders httpHeadersView;
 
   public GbifHttpServletRequestWrapper(HttpServletRequest request) {
     this(request, false);
   }
 
   /**
-   *
+   * @param wrapContent whether to buffer the content, so it can be read more than once
    */
   public GbifHttpServletRequestWrapper(HttpServletRequest request, boolean wrapContent) {
-    this(request, null, wrapContent);
-    if (!wrapContent) {
-      this.wrappedRequest = request;
-    }
+    this(request, wrapContent, ReplayableRequestBody.DEFAULT_MEMORY_THRESHOLD);
   }
 
+  /**
+   * @param wrapContent whether to buffer the content, so it can be read more than once
+   * @param memoryThreshold maximum size in bytes of a content buffered in memory, larger contents
+   *     are buffered in a temporary file
+   */
   public GbifHttpServletRequestWrapper(
-      HttpServletRequest request, String contentAsString, boolean wrapContent) {
+      HttpServletRequest request, boolean wrapContent, int memoryThreshold) {
     super(request);
 
-    try {
-      if (StringUtils.isNotEmpty(contentAsString)) {
-        content = contentAsString;
-      } else if (request.getInputStream() != null && wrapContent) {
-        content = IOUtils.toString(request.getInputStream(), request.getCharacterEncoding());
-      } else {
-        content = null;
+    if (wrapContent) {
+      try {
+        InputStream in = request.getInputStream();
+        if (in != null) {
+          body = ReplayableRequestBody.read(in, memoryThreshold);
+        }
+      } catch (IOException e) {
+        throw new RuntimeException("Stream can't be read", e);
       }
-    } catch (IOException e) {
-      throw new RuntimeException("Stream can't be read", e);
     }
+  }
 
-    httpHeaders = getHttpHeaders(request);
+  public GbifHttpServletRequestWrapper(
+      HttpServletRequest request, String contentAsString, boolean wrapContent) {
+    this(request, StringUtils.isEmpty(contentAsString) && wrapContent);
+
+    if (StringUtils.isNotEmpty(contentAsString)) {
+      content = contentAsString;
+      body = ReplayableRequestBody.of(contentAsString.getBytes(getContentCharset()));
+    }
   }
 
   @Override
   public ServletInputStream getInputStream() throws IOException {
-    if (wrappedRequest != null) {
-      return wrappedRequest.getInputStream();
-    } else {
-      final ByteArrayInputStream byteArrayInputStream =
-          new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
-      return new DelegatingServletInputStream(byteArrayInputStream);
+    if (body == null) {
+      return super.getInputStream();
     }
+    return new DelegatingServletInputStream(body.openStream());
   }
 
   @Override
   public BufferedReader getReader() throws IOException {
-    return new BufferedReader(new InputStreamReader(this.getInputStream(), StandardCharsets.UTF_8));
+    if (body == null) {
+      return super.getReader();
+    }
+    return new BufferedReader(new InputStreamReader(getInputStream(), getContentCharset()));
   }
 
-  private HttpHeaders getHttpHeaders(HttpServletRequest request) {
-    final HttpHeaders requestHeaders = new HttpHeaders();
-    Enumeration<String> headerNames = request.getHeaderNames();
-
-    if (headerNames != null) {
-      while (headerNames.hasMoreElements()) {
-        String currentHeaderName = headerNames.nextElement();
-        requestHeaders.set(currentHeaderName, request.getHeader(currentHeaderName));
+  /**
+   * Decodes the whole buffered content in a String. Content kept in memory is decoded once, content
+   * spilled to disk is read and decoded again on every call, callers should keep the result
+   * instead of calling this method repeatedly, or stream {@link #getBody()}.
+   *
+   * @return the buffered content decoded with the request character encoding, or null if the
+   *     content is not buffered
+   */
+  public String getContent() {
+    if (content == null && body != null) {
+      try {
+        String decoded = body.asString(getContentCharset());
+        if (!body.isInMemory()) {
+          // don't keep a second copy of a large content
+          return decoded;
+        }
+        content = decoded;
+      } catch (IOException e) {
+        throw new RuntimeException("Buffered content can't be read", e);
       }
     }
+    return content;
+  }
 
-    return requestHeaders;
+  /**
+   * @return the buffered content, or null if the content is not buffered
+   */
+  public ReplayableRequestBody getBody() {
+    return body;
   }
 
-  public String getContent() {
-    return content;
+  private Charset getContentCharset() {
+    String encoding = getCharacterEncoding();
+    return encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+  }
+
+  /**
+   * Releases the buffered content.
+   */
+  @Override
+  public void close() {
+    if (body != null) {
+      body.close();
+    }
   }
 
+  /**
+   * Unlike earlier versions, which returned a writable copy, the returned headers can't be
+   * modified: their mutators throw an {@link UnsupportedOperationException}. Use
+   * {@link #setHeader(String, String)} or {@link #addHeader(String, String)} to change a header.
+   *
+   * @return read-only, case-insensitive view of the request headers including the overridden ones
+   */
   public HttpHeaders getHttpHeaders() {
-    return new HttpHeaders(httpHeaders);
+    if (httpHeadersView == null) {
+      httpHeadersView = new HttpHeaders(new HeadersView());
+    }
+    return httpHeadersView;
+  }
+
+  /**
+   * Overrides a header of the wrapped request, discarding its parsed {@link RequestAuthHeaders}.
+   */
+  public void setHeader(String name, String value) {
+    overrides().set(name, value);
+    RequestAuthHeaders.reset(this);
+  }
+
+  /**
+   * Adds a value to a header, keeping the values of the wrapped request and discarding its parsed
+   * {@link RequestAuthHeaders}.
+   */
+  public void addHeader(String name, String value) {
+    HttpHeaders overrides = overrides();
+    if (!overrides.containsKey(name)) {
+      overrides.put(name, Collections.list(super.getHeaders(name)));
+    }
+    overrides.add(name, value);
+    RequestAuthHeaders.reset(this);
   }
 
   public void overwriteLanguageHeader(String newValue) {
-    httpHeaders.set(HttpHeaders.ACCEPT_LANGUAGE, newValue);
+    setHeader(HttpHeaders.ACCEPT_LANGUAGE, newValue);
+  }
+
+  private HttpHeaders overrides() {
+    if (headerOverrides == null) {
+      headerOverrides = new HttpHeaders();
+    }
+    return headerOverrides;
+  }
+
+  private boolean isOverridden(String name) {
+    return headerOverrides != null && headerOverrides.containsKey(name);
   }
 
   @Override
   public String getHeader(String name) {
-    if (getHttpHeaders().containsKey(name)) {
-      return getHttpHeaders().getFirst(name);
+    if (isOverridden(name)) {
+      return headerOverrides.getFirst(name);
     }
     return super.getHeader(name);
   }
 
   @Override
   public Enumeration<String> getHeaderNames() {
-    return Collections.enumeration(httpHeaders.keySet());
+    if (headerOverrides == null) {
+      return super.getHeaderNames();
+    }
+    Map<String, String> names = new LinkedCaseInsensitiveMap<>();
+    Enumeration<String> requestNames = super.getHeaderNames();
+    if (requestNames != null) {
+      while (requestNames.hasMoreElements()) {
+        String name = requestNames.nextElement();
+        names.put(name, name);
+      }
+    }
+    headerOverrides.keySet().forEach(name -> names.putIfAbsent(name, name));
+    return Collections.enumeration(names.values());
   }
 
   @Override
   public Enumeration<String> getHeaders(String name) {
-    List<String> values = new ArrayList<>();
-    if (httpHeaders.containsKey(name)) {
-      Optional.ofNullable(httpHeaders.get(name)).ifPresent(values::addAll);
+    if (isOverridden(name)) {
+      return Collections.enumeration(headerOverrides.get(name));
+    }
+    Enumeration<String> values = super.getHeaders(name);
+    return values != null ? values : Collections.emptyEnumeration();
+  }
+
+  /**
+   * Read-only {@link MultiValueMap} over the headers of this wrapper, values are looked up on each
+   * access.
+   */
+  private class HeadersView extends AbstractMap<String, List<String>>
+      implements MultiValueMap<String, String> {
+
+    @Override
+    public String getFirst(String key) {
+      return getHeader(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return key instanceof String && getHeader((String) key) != null;
+    }
+
+    @Override
+    public List<String> get(Object key) {
+      if (!(key instanceof String)) {
+        return null;
+      }
+      List<String> values = Collections.list(getHeaders((String) key));
+      return values.isEmpty() ? null : Collections.unmodifiableList(values);
+    }
+
+    @Override
+    public Set<Entry<String, List<String>>> entrySet() {
+      Set<Entry<String, List<String>>> entries = new LinkedHashSet<>();
+      Enumeration<String> names = getHeaderNames();
+      if (names != null) {
+        while (names.hasMoreElements()) {
+          String name = names.nextElement();
+          entries.add(
+              new SimpleImmutableEntry<>(
+                  name, Collections.unmodifiableList(Collections.list(getHeaders(name)))));
+        }
+      }
+      return Collections.unmodifiableSet(entries);
+    }
+
+    @Override
+    public Map<String, String> toSingleValueMap() {
+      Map<String, String> singleValueMap = new LinkedHashMap<>();
+      entrySet().stream()
+          .filter(e -> !e.getValue().isEmpty())
+          .forEach(e -> singleValueMap.put(e.getKey(), e.getValue().get(0)));
+      return singleValueMap;
+    }
+
+    @Override
+    public void add(String key, String value) {
+      throw new UnsupportedOperationException(READ_ONLY_HEADERS);
+    }
+
+    @Override
+    public void addAll(String key, List<? extends String> values) {
+      throw new UnsupportedOperationException(READ_ONLY_HEADERS);
+    }
+
+    @Override
+    public void addAll(MultiValueMap<String, String> values) {
+      throw new UnsupportedOperationException(READ_ONLY_HEADERS);
+    }
+
+    @Override
+    public void set(String key, String value) {
+      throw new UnsupportedOperationException(READ_ONLY_HEADERS);
+    }
+
+    @Override
+    public void setAll(Map<String, String> values) {
+      throw new UnsupportedOperationException(READ_ONLY_HEADERS);
+    }
+
+    @Override
+    public List<String> put(String key, List<String> value) {
+      throw new UnsupportedOperationException(READ_ONLY_HEADERS);
     }
-    return Collections.enumeration(values);
   }
 }
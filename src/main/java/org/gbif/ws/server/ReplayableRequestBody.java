@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.server;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Byte buffer of a request body which can be read any number of times.
+ * <p>
+ * Bodies up to the memory threshold are kept on the heap, larger bodies are spilled to a temporary
+ * file while they are read. The bytes are replayed as they were received, without decoding them.
+ * {@link #close()} deletes the temporary file if there is one.
+ */
+public class ReplayableRequestBody implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReplayableRequestBody.class);
+
+  /**
+   * Default maximum size of a body kept in memory: 1MB.
+   */
+  public static final int DEFAULT_MEMORY_THRESHOLD = 1024 * 1024;
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final byte[] bytes;
+  private final Path file;
+  private final long length;
+
+  private ReplayableRequestBody(byte[] bytes, Path file, long length) {
+    this.bytes = bytes;
+    this.file = file;
+    this.length = length;
+  }
+
+  /**
+   * Buffers the given bytes in memory.
+   */
+  public static ReplayableRequestBody of(byte[] bytes) {
+    return new ReplayableRequestBody(bytes, null, bytes.length);
+  }
+
+  /**
+   * Reads the stream fully, keeping it in memory unless it is larger than the memory threshold.
+   * The stream is not closed.
+   */
+  public static ReplayableRequestBody read(InputStream in, int memoryThreshold)
+      throws IOException {
+    ByteArrayOutputStream memory = new ByteArrayOutputStream(Math.min(memoryThreshold, BUFFER_SIZE));
+    byte[] buffer = new byte[BUFFER_SIZE];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      if (memory.size() + read > memoryThreshold) {
+        return spill(memory, buffer, read, in);
+      }
+      memory.write(buffer, 0, read);
+    }
+    return of(memory.toByteArray());
+  }
+
+  private static ReplayableRequestBody spill(
+      ByteArrayOutputStream memory, byte[] buffer, int read, InputStream in) throws IOException {
+    Path file = Files.createTempFile("gbif-request-", ".body");
+    long length = memory.size();
+    try (OutputStream out = Files.newOutputStream(file)) {
+      memory.writeTo(out);
+      do {
+        out.write(buffer, 0, read);
+        length += read;
+      } while ((read = in.read(buffer)) != -1);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+    LOG.debug("Request body of {} bytes buffered in {}", length, file);
+    return new ReplayableRequestBody(null, file, length);
+  }
+
+  /**
+   * @return a new stream over the body, positioned at its first byte
+   */
+  public InputStream openStream() throws IOException {
+    if (bytes != null) {
+      return new ByteArrayInputStream(bytes);
+    }
+    return new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+  }
+
+  /**
+   * @return the body decoded with the given charset
+   */
+  public String asString(Charset charset) throws IOException {
+    if (bytes != null) {
+      return new String(bytes, charset);
+    }
+    return new String(Files.readAllBytes(file), charset);
+  }
+
+  /**
+   * @return a copy of the body bytes
+   */
+  public byte[] toByteArray() throws IOException {
+    return bytes != null ? Arrays.copyOf(bytes, bytes.length) : Files.readAllBytes(file);
+  }
+
+  public long length() {
+    return length;
+  }
+
+  public boolean isInMemory() {
+    return bytes != null;
+  }
+
+  @Override
+  public void close() {
+    if (file != null) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        LOG.warn("Could not delete buffered request body {}", file, e);
+      }
+    }
+  }
+}
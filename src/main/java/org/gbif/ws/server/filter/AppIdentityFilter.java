@@ -18,7 +18,6 @@ import org.gbif.ws.security.AnonymousUserPrincipal;
 import org.gbif.ws.security.AppPrincipal;
 import org.gbif.ws.security.AppkeysConfigurationProperties;
 import org.gbif.ws.security.GbifAuthService;
-import org.gbif.ws.security.GbifAuthUtils;
 import org.gbif.ws.security.GbifAuthenticationToken;
 import org.gbif.ws.server.GbifHttpServletRequestWrapper;
 import org.gbif.ws.util.SecurityConstants;
@@ -32,7 +31,6 @@ import java.util.List;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -64,7 +62,7 @@ import jakarta.validation.constraints.NotNull;
  * is not provided no apps will be authenticated by this filter.
  */
 @Component
-public class AppIdentityFilter extends OncePerRequestFilter {
+public class AppIdentityFilter extends OncePerRequestFilter implements RequestAuthenticator {
 
   private static final Logger LOG = LoggerFactory.getLogger(AppIdentityFilter.class);
 
@@ -85,6 +83,22 @@ public class AppIdentityFilter extends OncePerRequestFilter {
   protected void doFilterInternal(
       HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
+    authenticate(request, response, RequestAuthHeaders.of(request));
+    filterChain.doFilter(request, response);
+  }
+
+  @Override
+  public boolean supports(RequestAuthHeaders.Scheme scheme) {
+    return scheme == RequestAuthHeaders.Scheme.GBIF;
+  }
+
+  /**
+   * Invalid GBIF requests get a 401 status but are not stopped, the chain decides what to do with
+   * the unauthenticated request.
+   */
+  @Override
+  public boolean authenticate(
+      HttpServletRequest request, HttpServletResponse response, RequestAuthHeaders headers) {
     final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
     LOG.debug("AppIdentityFilter in action for request {}", request.getRequestURI());
@@ -92,16 +106,15 @@ public class AppIdentityFilter extends OncePerRequestFilter {
     if (authentication == null
         || authentication.getPrincipal() == null
         || authentication.getPrincipal() instanceof AnonymousUserPrincipal) {
-      String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
 
-      if (StringUtils.startsWith(authorization, SecurityConstants.GBIF_SCHEME_PREFIX)) {
+      if (headers.getScheme() == RequestAuthHeaders.Scheme.GBIF) {
         LOG.debug("AppIdentityFilter GBIF scheme found for request {}", request.getRequestURI());
         if (authService.isValidRequest(
             request instanceof GbifHttpServletRequestWrapper
                 ? (GbifHttpServletRequestWrapper) request
                 : new GbifHttpServletRequestWrapper(request))) {
-          String username = request.getHeader(SecurityConstants.HEADER_GBIF_USER);
-          String appKey = GbifAuthUtils.getAppKeyFromRequest(authorization);
+          String username = headers.getGbifUser();
+          String appKey = headers.getAppKey();
 
           // check if it's an app by ensuring the appkey used to sign the request is the one used as
           // x-gbif-user
@@ -121,7 +134,6 @@ public class AppIdentityFilter extends OncePerRequestFilter {
         }
       }
     }
-
-    filterChain.doFilter(request, response);
+    return true;
   }
 }
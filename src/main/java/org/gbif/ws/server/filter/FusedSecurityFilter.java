@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.server.filter;
+
+import org.gbif.ws.server.GbifHttpServletRequestWrapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Single filter doing the work of {@link HttpServletRequestWrapperFilter},
+ * {@link RequestHeaderParamUpdateFilter} and a list of authentication filters in one pass.
+ * <p>
+ * The request is wrapped once, the authentication headers are parsed once into
+ * {@link RequestAuthHeaders} and only the {@link RequestAuthenticator}s supporting the scheme of
+ * the request are run, in the order they are given. Authenticators select the schemes they handle
+ * the same way standalone, so both modes authenticate the same requests. The security configurers
+ * use it instead of the separate filters when {@code gbif.ws.security.fusedFilter} is true.
+ * <p>
+ * The delegated filters are usually {@code @Component} beans, which Spring Boot also registers as
+ * servlet filters. While the request is handled, they are marked as already filtered, like when
+ * they run in the security chain, so their servlet copies don't authenticate the request again.
+ */
+public class FusedSecurityFilter extends OncePerRequestFilter {
+
+  private final HttpServletRequestWrapperFilter requestWrapperFilter;
+
+  private final Map<RequestAuthHeaders.Scheme, List<RequestAuthenticator>> authenticators =
+      new EnumMap<>(RequestAuthHeaders.Scheme.class);
+
+  // delegated filters whose servlet registration must be skipped for the requests handled here
+  private final List<OncePerRequestFilter> delegatedFilters = new ArrayList<>();
+
+  public FusedSecurityFilter(
+      HttpServletRequestWrapperFilter requestWrapperFilter,
+      List<? extends RequestAuthenticator> authenticators) {
+    Objects.requireNonNull(requestWrapperFilter, "requestWrapperFilter shall be provided");
+    Objects.requireNonNull(authenticators, "authenticators shall be provided");
+    this.requestWrapperFilter = requestWrapperFilter;
+    this.delegatedFilters.add(requestWrapperFilter);
+    for (RequestAuthenticator authenticator : authenticators) {
+      if (authenticator instanceof OncePerRequestFilter) {
+        this.delegatedFilters.add((OncePerRequestFilter) authenticator);
+      }
+    }
+    // resolve the authenticators of each scheme once
+    for (RequestAuthHeaders.Scheme scheme : RequestAuthHeaders.Scheme.values()) {
+      this.authenticators.put(
+          scheme,
+          authenticators.stream()
+              .filter(authenticator -> authenticator.supports(scheme))
+              .collect(Collectors.toList()));
+    }
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    List<String> filteredAttributes = markDelegatedFiltersAsFiltered(request);
+    try {
+      if (request instanceof GbifHttpServletRequestWrapper) {
+        doFilterWrapped((GbifHttpServletRequestWrapper) request, response, filterChain);
+        return;
+      }
+
+      // release the buffered content once the request has been handled
+      try (GbifHttpServletRequestWrapper requestWrapper = requestWrapperFilter.wrap(request)) {
+        doFilterWrapped(requestWrapper, response, filterChain);
+      }
+    } finally {
+      filteredAttributes.forEach(request::removeAttribute);
+    }
+  }
+
+  /**
+   * Sets the already filtered attribute of the delegated filters registered in the servlet
+   * container, i.e. initialised with a {@link FilterConfig}. The attribute name is the one of
+   * {@link OncePerRequestFilter}, the filter name followed by
+   * {@link OncePerRequestFilter#ALREADY_FILTERED_SUFFIX}.
+   *
+   * @return the attributes set
+   */
+  private List<String> markDelegatedFiltersAsFiltered(HttpServletRequest request) {
+    List<String> attributes = new ArrayList<>(delegatedFilters.size());
+    for (OncePerRequestFilter filter : delegatedFilters) {
+      FilterConfig filterConfig = filter.getFilterConfig();
+      if (filterConfig != null) {
+        String attribute = filterConfig.getFilterName() + ALREADY_FILTERED_SUFFIX;
+        if (request.getAttribute(attribute) == null) {
+          request.setAttribute(attribute, Boolean.TRUE);
+          attributes.add(attribute);
+        }
+      }
+    }
+    return attributes;
+  }
+
+  private void doFilterWrapped(
+      GbifHttpServletRequestWrapper request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    RequestHeaderParamUpdateFilter.processLanguage(request);
+
+    RequestAuthHeaders headers = RequestAuthHeaders.of(request);
+    for (RequestAuthenticator authenticator : authenticators.get(headers.getScheme())) {
+      if (!authenticator.authenticate(request, response, headers)) {
+        return;
+      }
+    }
+
+    filterChain.doFilter(request, response);
+  }
+}
@@ -14,11 +14,23 @@
 package org.gbif.ws.server.filter;
 
 import org.gbif.ws.server.GbifHttpServletRequestWrapper;
+import org.gbif.ws.server.ReplayableRequestBody;
+import org.gbif.ws.util.SecurityConstants;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import jakarta.servlet.FilterChain;
@@ -26,25 +38,124 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+/**
+ * Wraps the request in a {@link GbifHttpServletRequestWrapper} buffering its content, so it can be
+ * read more than once.
+ * <p>
+ * The content is only buffered when {@code gbif.ws.security.wrapContent} is enabled and the request
+ * needs it, that is when:
+ *
+ * <ul>
+ *   <li>it is signed with the GBIF scheme and has a Content-MD5 header, or
+ *   <li>it matches the rules configured with {@code gbif.ws.security.wrapContent.paths} (ant path
+ *       patterns) and {@code gbif.ws.security.wrapContent.contentTypes}. A request must match both
+ *       when both are given. Without any of them no request is buffered by rule.
+ * </ul>
+ *
+ * Other requests are passed through untouched.
+ */
 @Component
 public class HttpServletRequestWrapperFilter extends OncePerRequestFilter {
 
+  private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
   private boolean wrapContent;
 
+  private int memoryThreshold;
+
+  private List<String> paths;
+
+  private List<MediaType> contentTypes;
+
+  @Autowired
   public HttpServletRequestWrapperFilter(
-      @Value("${gbif.ws.security.wrapContent:true}") boolean wrapContent) {
+      @Value("${gbif.ws.security.wrapContent:true}") boolean wrapContent,
+      @Value("${gbif.ws.security.wrapContent.memoryThreshold:1048576}") int memoryThreshold,
+      @Value("${gbif.ws.security.wrapContent.paths:}") String[] paths,
+      @Value("${gbif.ws.security.wrapContent.contentTypes:}") String[] contentTypes) {
     this.wrapContent = wrapContent;
+    this.memoryThreshold = memoryThreshold;
+    this.paths =
+        Arrays.stream(paths)
+            .filter(StringUtils::isNotBlank)
+            .map(String::trim)
+            .collect(Collectors.toList());
+    this.contentTypes =
+        Arrays.stream(contentTypes)
+            .filter(StringUtils::isNotBlank)
+            .map(MediaType::parseMediaType)
+            .collect(Collectors.toList());
+  }
+
+  public HttpServletRequestWrapperFilter(boolean wrapContent) {
+    this(wrapContent, ReplayableRequestBody.DEFAULT_MEMORY_THRESHOLD, new String[0], new String[0]);
   }
 
   @Override
   protected void doFilterInternal(
       HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
-    final GbifHttpServletRequestWrapper requestWrapper =
-        request instanceof GbifHttpServletRequestWrapper
-            ? (GbifHttpServletRequestWrapper) request
-            : new GbifHttpServletRequestWrapper(request, wrapContent);
+    if (request instanceof GbifHttpServletRequestWrapper || !requiresContentBuffering(request)) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    // release the buffered content once the request has been handled
+    try (GbifHttpServletRequestWrapper requestWrapper =
+        new GbifHttpServletRequestWrapper(request, true, memoryThreshold)) {
+      filterChain.doFilter(requestWrapper, response);
+    }
+  }
+
+  /**
+   * Wraps the request, buffering its content only if required.
+   */
+  GbifHttpServletRequestWrapper wrap(HttpServletRequest request) {
+    return new GbifHttpServletRequestWrapper(
+        request, requiresContentBuffering(request), memoryThreshold);
+  }
+
+  /**
+   * @return true if the content of the request has to be buffered
+   */
+  protected boolean requiresContentBuffering(HttpServletRequest request) {
+    if (!wrapContent) {
+      return false;
+    }
+
+    if (StringUtils.startsWith(
+            request.getHeader(HttpHeaders.AUTHORIZATION), SecurityConstants.GBIF_SCHEME_PREFIX)
+        && request.getHeader(SecurityConstants.HEADER_CONTENT_MD5) != null) {
+      return true;
+    }
+
+    if (paths.isEmpty() && contentTypes.isEmpty()) {
+      return false;
+    }
+
+    return matchesPath(request) && matchesContentType(request);
+  }
+
+  private boolean matchesPath(HttpServletRequest request) {
+    if (paths.isEmpty()) {
+      return true;
+    }
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    return paths.stream().anyMatch(pattern -> PATH_MATCHER.match(pattern, path));
+  }
 
-    filterChain.doFilter(requestWrapper, response);
+  private boolean matchesContentType(HttpServletRequest request) {
+    if (contentTypes.isEmpty()) {
+      return true;
+    }
+    if (request.getContentType() == null) {
+      return false;
+    }
+    try {
+      MediaType contentType = MediaType.parseMediaType(request.getContentType());
+      return contentTypes.stream().anyMatch(type -> type.includes(contentType));
+    } catch (InvalidMediaTypeException e) {
+      return false;
+    }
   }
 }
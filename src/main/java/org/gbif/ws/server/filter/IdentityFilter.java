@@ -46,7 +46,7 @@ import jakarta.servlet.http.HttpServletResponse;
  * simply passed through and passwords are not evaluated.
  */
 @Component
-public class IdentityFilter extends OncePerRequestFilter {
+public class IdentityFilter extends OncePerRequestFilter implements RequestAuthenticator {
 
   private static final Logger LOG = LoggerFactory.getLogger(IdentityFilter.class);
 
@@ -63,15 +63,25 @@ public class IdentityFilter extends OncePerRequestFilter {
     Objects.requireNonNull(request, "Can't filter null request");
     Objects.requireNonNull(response, "Can't filter null response");
 
+    if (authenticate(request, response, RequestAuthHeaders.of(request))) {
+      filterChain.doFilter(request, response);
+    }
+  }
+
+  @Override
+  public boolean authenticate(
+      HttpServletRequest request, HttpServletResponse response, RequestAuthHeaders headers)
+      throws IOException {
     // authenticates the HTTP method, but ignores legacy UUID user names
     try {
-      final Authentication authentication = authenticationManager.authenticate(request);
+      final Authentication authentication = authenticationManager.authenticate(request, headers);
       SecurityContextHolder.getContext().setAuthentication(authentication);
-      filterChain.doFilter(request, response);
+      return true;
     } catch (final WebApplicationException e) {
       LOG.debug("Exception while authentication in IdentityFilter: {}", e.getMessage());
       response.setStatus(e.getStatus());
       response.getOutputStream().println(e.getMessage());
+      return false;
     }
   }
 }
@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.server.filter;
+
+import org.gbif.ws.security.GbifAuthUtils;
+import org.gbif.ws.util.SecurityConstants;
+
+import org.springframework.http.HttpHeaders;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Authentication related headers of a request, parsed once and kept as a request attribute so the
+ * security filters don't parse the Authorization header again.
+ */
+public final class RequestAuthHeaders {
+
+  /**
+   * Request attribute holding the parsed headers.
+   */
+  public static final String ATTRIBUTE = RequestAuthHeaders.class.getName();
+
+  private static final String BEARER = "bearer";
+
+  /**
+   * Scheme of the Authorization header.
+   */
+  public enum Scheme {
+    NONE,
+    BASIC,
+    BEARER,
+    GBIF,
+    OTHER
+  }
+
+  private final HttpServletRequest request;
+  private final Scheme scheme;
+  private final String authorization;
+  private final String credentials;
+
+  // only used by the GBIF scheme, read on the first call of their getters
+  private String gbifUser;
+  private boolean gbifUserRead;
+  private String contentMd5;
+  private boolean contentMd5Read;
+
+  private RequestAuthHeaders(
+      HttpServletRequest request, Scheme scheme, String authorization, String credentials) {
+    this.request = request;
+    this.scheme = scheme;
+    this.authorization = authorization;
+    this.credentials = credentials;
+  }
+
+  /**
+   * Gets the headers parsed for this request, parsing them on the first call.
+   */
+  public static RequestAuthHeaders of(HttpServletRequest request) {
+    Object parsed = request.getAttribute(ATTRIBUTE);
+    if (parsed instanceof RequestAuthHeaders) {
+      return (RequestAuthHeaders) parsed;
+    }
+    RequestAuthHeaders headers = parse(request);
+    request.setAttribute(ATTRIBUTE, headers);
+    return headers;
+  }
+
+  /**
+   * Removes the parsed headers from the request, e.g. after its Authorization header is changed.
+   */
+  public static void reset(ServletRequest request) {
+    request.removeAttribute(ATTRIBUTE);
+  }
+
+  static RequestAuthHeaders parse(HttpServletRequest request) {
+    String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+    Scheme scheme;
+    String credentials = null;
+    if (authorization == null) {
+      scheme = Scheme.NONE;
+    } else if (authorization.startsWith(SecurityConstants.BASIC_SCHEME_PREFIX)) {
+      scheme = Scheme.BASIC;
+      credentials = authorization.substring(SecurityConstants.BASIC_SCHEME_PREFIX.length());
+    } else if (authorization.startsWith(SecurityConstants.GBIF_SCHEME_PREFIX)) {
+      scheme = Scheme.GBIF;
+      credentials = authorization.substring(SecurityConstants.GBIF_SCHEME_PREFIX.length());
+    } else if (authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+      scheme = Scheme.BEARER;
+      credentials = authorization.substring(BEARER.length()).trim();
+    } else {
+      scheme = Scheme.OTHER;
+    }
+
+    return new RequestAuthHeaders(request, scheme, authorization, credentials);
+  }
+
+  public Scheme getScheme() {
+    return scheme;
+  }
+
+  /**
+   * @return the full Authorization header, null if absent
+   */
+  public String getAuthorization() {
+    return authorization;
+  }
+
+  /**
+   * @return the Authorization header without the scheme prefix, null for the NONE and OTHER schemes
+   */
+  public String getCredentials() {
+    return credentials;
+  }
+
+  /**
+   * @return the application key signing a GBIF scheme request, null for other schemes
+   */
+  public String getAppKey() {
+    return scheme == Scheme.GBIF ? GbifAuthUtils.getAppKeyFromRequest(authorization) : null;
+  }
+
+  public String getGbifUser() {
+    if (!gbifUserRead) {
+      gbifUser = request.getHeader(SecurityConstants.HEADER_GBIF_USER);
+      gbifUserRead = true;
+    }
+    return gbifUser;
+  }
+
+  public String getContentMd5() {
+    if (!contentMd5Read) {
+      contentMd5 = request.getHeader(SecurityConstants.HEADER_CONTENT_MD5);
+      contentMd5Read = true;
+    }
+    return contentMd5;
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.server.filter;
+
+import java.io.IOException;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Authentication step of a security filter, so it can run on its own or inside a
+ * {@link FusedSecurityFilter}.
+ */
+public interface RequestAuthenticator {
+
+  /**
+   * @return true if this authenticator handles requests of the given scheme
+   */
+  default boolean supports(RequestAuthHeaders.Scheme scheme) {
+    return true;
+  }
+
+  /**
+   * Authenticates the request and populates the security context.
+   *
+   * @return false if the request has been rejected and must not continue along the chain
+   */
+  boolean authenticate(
+      HttpServletRequest request, HttpServletResponse response, RequestAuthHeaders headers)
+      throws IOException;
+}
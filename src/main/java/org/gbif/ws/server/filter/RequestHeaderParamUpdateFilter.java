@@ -59,7 +59,7 @@ public class RequestHeaderParamUpdateFilter extends OncePerRequestFilter {
     filterChain.doFilter(httpRequestWrapper, response);
   }
 
-  private static void processLanguage(GbifHttpServletRequestWrapper request) {
+  static void processLanguage(GbifHttpServletRequestWrapper request) {
     String language = StringUtils.trimToEmpty(request.getParameter("language"));
     if (!language.isEmpty()) {
       // overwrite http language
@@ -0,0 +1,54 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.server.provider;
+
+import org.gbif.api.model.common.paging.PagingRequest;
+
+/**
+ * Page requested with a cursor instead of an offset. The offset is always 0, the page starts after
+ * the {@link #getSearchAfter() search after} state of the previous page, e.g. the sort values of
+ * its last record.
+ *
+ * @see PagingCursorCodec
+ */
+public class CursorPagingRequest extends PagingRequest {
+
+  private final String searchAfter;
+
+  /**
+   * @param searchAfter state of the previous page, null for the first page
+   * @param limit page size
+   */
+  public CursorPagingRequest(String searchAfter, int limit) {
+    super(0, limit);
+    this.searchAfter = searchAfter;
+  }
+
+  /**
+   * @return the state of the previous page as given to {@link PagingCursorCodec#encode(String)},
+   *     null for the first page
+   */
+  public String getSearchAfter() {
+    return searchAfter;
+  }
+
+  public boolean isFirstPage() {
+    return searchAfter == null;
+  }
+
+  @Override
+  public String toString() {
+    return "CursorPagingRequest{searchAfter=" + searchAfter + ", limit=" + getLimit() + '}';
+  }
+}
@@ -17,12 +17,9 @@ import org.gbif.api.model.common.search.FacetedSearchRequest;
 import org.gbif.api.model.common.search.SearchParameter;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.web.context.request.WebRequest;
 
-import static org.gbif.ws.util.CommonWsUtils.getFirst;
 import static org.gbif.ws.util.WebserviceParameter.PARAM_FACET;
 import static org.gbif.ws.util.WebserviceParameter.PARAM_FACET_LIMIT;
 import static org.gbif.ws.util.WebserviceParameter.PARAM_FACET_MINCOUNT;
@@ -53,24 +50,24 @@ public class FacetedSearchRequestProvider<
   protected RT getSearchRequest(WebRequest webRequest, RT searchRequest) {
     RT request = super.getSearchRequest(webRequest, searchRequest);
 
-    final Map<String, String[]> params = webRequest.getParameterMap();
+    final RequestParameterIndex params = RequestParameterIndex.of(webRequest);
 
-    final String facetMultiSelectValue = getFirstIgnoringCase(PARAM_FACET_MULTISELECT, params);
+    final String facetMultiSelectValue = params.getFirstIgnoringCase(PARAM_FACET_MULTISELECT);
     if (facetMultiSelectValue != null) {
       searchRequest.setFacetMultiSelect(Boolean.parseBoolean(facetMultiSelectValue));
     }
 
-    final String facetMinCountValue = getFirstIgnoringCase(PARAM_FACET_MINCOUNT, params);
+    final String facetMinCountValue = params.getFirstIgnoringCase(PARAM_FACET_MINCOUNT);
     if (facetMinCountValue != null) {
       searchRequest.setFacetMinCount(Integer.parseInt(facetMinCountValue));
     }
 
-    final String facetLimit = getFirstIgnoringCase(PARAM_FACET_LIMIT, params);
+    final String facetLimit = params.getFirstIgnoringCase(PARAM_FACET_LIMIT);
     if (facetLimit != null) {
       searchRequest.setFacetLimit(Integer.parseInt(facetLimit));
     }
 
-    final String facetOffset = getFirstIgnoringCase(PARAM_FACET_OFFSET, params);
+    final String facetOffset = params.getFirstIgnoringCase(PARAM_FACET_OFFSET);
     if (facetOffset != null) {
       searchRequest.setFacetOffset(Integer.parseInt(facetOffset));
     }
@@ -84,8 +81,8 @@ public class FacetedSearchRequestProvider<
         P p = findSearchParam(f);
         if (p != null) {
           searchRequest.addFacets(p);
-          String pFacetOffset = getFirstIgnoringCase(f + '.' + PARAM_FACET_OFFSET, params);
-          String pFacetLimit = getFirstIgnoringCase(f + '.' + PARAM_FACET_LIMIT, params);
+          String pFacetOffset = params.getFirstIgnoringCase(f + '.' + PARAM_FACET_OFFSET);
+          String pFacetLimit = params.getFirstIgnoringCase(f + '.' + PARAM_FACET_LIMIT);
           if (pFacetLimit != null) {
             if (pFacetOffset != null) {
               searchRequest.addFacetPage(
@@ -106,36 +103,11 @@ public class FacetedSearchRequestProvider<
   /**
    * Get the first parameter value, the parameter is searched in a case-insensitive manner.
    * First tries with the exact match, then the lowercase and finally the uppercase value of the parameter.
+   * Providers resolving a request should use {@link RequestParameterIndex#of(WebRequest)} instead.
+   *
+   * @see RequestParameterIndex#getFirstIgnoringCase(Map, String)
    */
   protected static String getFirstIgnoringCase(String parameter, Map<String, String[]> params) {
-    String value = getFirst(params, parameter);
-    if (StringUtils.isNotEmpty(value)) {
-      return value;
-    }
-    value = getFirst(params, parameter.toLowerCase());
-    if (StringUtils.isNotEmpty(value)) {
-      return value;
-    }
-    value = getFirst(params, parameter.toUpperCase());
-    if (StringUtils.isNotEmpty(value)) {
-      return value;
-    }
-    if (!params.isEmpty()) {
-      // try with proper case insensitive search
-      Map<String, String> loweredParams = params.keySet().stream()
-          .collect(Collectors.toMap(
-              String::toLowerCase,
-              k -> k,
-              (existing, replacement) -> existing // keep first
-          ));
-      if (loweredParams.containsKey(parameter.toLowerCase())) {
-        value = getFirst(params, loweredParams.get(parameter.toLowerCase()));
-        if (StringUtils.isNotEmpty(value)) {
-          return value;
-        }
-      }
-    }
-
-    return null;
+    return RequestParameterIndex.getFirstIgnoringCase(params, parameter);
   }
 }
@@ -17,14 +17,11 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.context.request.WebRequest;
 
-import static org.gbif.ws.util.CommonWsUtils.getFirst;
-
 /**
  * Provider class that extracts the requested locale based on http header or language query parameter.
  * This allows resources to access a locale context very easily while keeping all logic in this class.
@@ -49,10 +46,8 @@ public class LocaleProvider implements ContextProvider<Locale> {
   }
 
   public static Locale getLocale(WebRequest webRequest) {
-    Map<String, String[]> params = webRequest.getParameterMap();
-
     // try language parameter first
-    String languageParam = getFirst(params, LANGUAGE_PARAM);
+    String languageParam = RequestParameterIndex.of(webRequest).getFirst(LANGUAGE_PARAM);
     if (languageParam != null) {
       String lang = languageParam.trim().toLowerCase();
       // iso language has to be 2 lower case letters!
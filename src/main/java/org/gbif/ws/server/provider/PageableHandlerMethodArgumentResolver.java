@@ -31,9 +31,18 @@ public class PageableHandlerMethodArgumentResolver extends PageableProvider
     super(maxPageSize);
   }
 
+  /**
+   * Resolves cursor pages as well, see {@link PageableProvider}.
+   */
+  public PageableHandlerMethodArgumentResolver(
+      Integer maxPageSize, PagingCursorCodec cursorCodec) {
+    super(maxPageSize, cursorCodec);
+  }
+
   @Override
   public boolean supportsParameter(MethodParameter parameter) {
-    return Pageable.class.equals(parameter.getParameterType());
+    return Pageable.class.equals(parameter.getParameterType())
+        || CursorPagingRequest.class.equals(parameter.getParameterType());
   }
 
   @Override
@@ -42,6 +51,9 @@ public class PageableHandlerMethodArgumentResolver extends PageableProvider
       ModelAndViewContainer mavContainer,
       NativeWebRequest webRequest,
       WebDataBinderFactory binderFactory) {
+    if (CursorPagingRequest.class.equals(parameter.getParameterType())) {
+      return getCursorPagingRequest(webRequest);
+    }
     return getValue(webRequest);
   }
 }
@@ -16,8 +16,6 @@ package org.gbif.ws.server.provider;
 import org.gbif.api.model.common.paging.Pageable;
 import org.gbif.api.model.common.paging.PagingRequest;
 
-import java.util.Map;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.context.request.WebRequest;
@@ -26,7 +24,6 @@ import static org.gbif.api.model.common.paging.PagingConstants.DEFAULT_PARAM_LIM
 import static org.gbif.api.model.common.paging.PagingConstants.DEFAULT_PARAM_OFFSET;
 import static org.gbif.api.model.common.paging.PagingConstants.PARAM_LIMIT;
 import static org.gbif.api.model.common.paging.PagingConstants.PARAM_OFFSET;
-import static org.gbif.ws.util.CommonWsUtils.getFirst;
 
 /**
  * Provider class that extracts the page size and offset from the query parameters, or provides the default
@@ -41,6 +38,8 @@ import static org.gbif.ws.util.CommonWsUtils.getFirst;
  * }
  * </pre>
  * <p/>
+ * When a {@link PagingCursorCodec} is given, requests with a cursor parameter are resolved to a
+ * {@link CursorPagingRequest} instead of an offset based page.
  */
 public class PageableProvider implements ContextProvider<Pageable> {
 
@@ -48,26 +47,52 @@ public class PageableProvider implements ContextProvider<Pageable> {
 
   private final Integer maxPageSize;
 
+  private final PagingCursorCodec cursorCodec;
+
   private static final int LIMIT_CAP = 1000;
 
   public PageableProvider() {
-    this.maxPageSize = LIMIT_CAP;
+    this(LIMIT_CAP);
   }
 
   public PageableProvider(Integer maxPageSize) {
+    this(maxPageSize, null);
+  }
+
+  public PageableProvider(Integer maxPageSize, PagingCursorCodec cursorCodec) {
     this.maxPageSize = maxPageSize;
+    this.cursorCodec = cursorCodec;
   }
 
   @Override
   public Pageable getValue(WebRequest webRequest) {
+    if (cursorCodec != null
+        && RequestParameterIndex.of(webRequest).getFirst(PagingCursorCodec.PARAM_CURSOR) != null) {
+      return getCursorPagingRequest(webRequest);
+    }
     return getPagingRequest(webRequest, maxPageSize);
   }
 
+  /**
+   * Resolves the cursor of the request, starting at the first page if there is no cursor.
+   *
+   * @throws IllegalStateException if no cursor codec is configured
+   */
+  public CursorPagingRequest getCursorPagingRequest(WebRequest webRequest) {
+    if (cursorCodec == null) {
+      throw new IllegalStateException("Cursor paging requires a PagingCursorCodec");
+    }
+    String cursor = RequestParameterIndex.of(webRequest).getFirst(PagingCursorCodec.PARAM_CURSOR);
+    String searchAfter = cursor != null ? cursorCodec.decode(cursor) : null;
+    int limit = getPagingRequest(webRequest, maxPageSize).getLimit();
+    return new CursorPagingRequest(searchAfter, limit);
+  }
+
   public static PagingRequest getPagingRequest(WebRequest webRequest, int maxPageSize) {
-    Map<String, String[]> params = webRequest.getParameterMap();
+    RequestParameterIndex params = RequestParameterIndex.of(webRequest);
 
     int limit = DEFAULT_PARAM_LIMIT;
-    String limitParam = getFirst(params, PARAM_LIMIT);
+    String limitParam = params.getFirst(PARAM_LIMIT);
     if (limitParam != null) {
       try {
         limit = Integer.parseInt(limitParam);
@@ -90,7 +115,7 @@ public class PageableProvider implements ContextProvider<Pageable> {
     }
 
     long offset = DEFAULT_PARAM_OFFSET;
-    String offsetParam = getFirst(params, PARAM_OFFSET);
+    String offsetParam = params.getFirst(PARAM_OFFSET);
     if (offsetParam != null) {
       try {
         offset = Long.parseLong(offsetParam);
@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.server.provider;
+
+import org.gbif.ws.WebApplicationException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Encodes the "search after" state of a page into an opaque cursor, and decodes it back.
+ * <p>
+ * A cursor is the URL safe Base64 encoding of the state followed by an HMAC-SHA256 signature of
+ * it, so clients can't forge or alter the state. The state itself is not encrypted and is decided
+ * by the service, e.g. the sort values of the last record of the page.
+ * <p>
+ * Cursors are given with the {@value #PARAM_CURSOR} query parameter, {@value #FIRST_PAGE} asking
+ * for the first page of a cursor walk.
+ * <p>
+ * A cursor only signs its state: it is not bound to the query, sort or limit it was issued for and
+ * it never expires. A client may replay it with other parameters or long after, so services must
+ * treat the decoded state as a plain "search after" position and validate it against the current
+ * request; a rotated secret invalidates all outstanding cursors.
+ */
+public class PagingCursorCodec {
+
+  public static final String PARAM_CURSOR = "cursor";
+
+  public static final String FIRST_PAGE = "*";
+
+  private static final String ALGORITHM = "HmacSHA256";
+
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private final SecretKeySpec key;
+
+  public PagingCursorCodec(String secret) {
+    Objects.requireNonNull(secret, "secret shall be provided");
+    if (secret.isEmpty()) {
+      throw new IllegalArgumentException("Cursor secret must not be empty");
+    }
+    this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+  }
+
+  /**
+   * @return the cursor of the given state
+   */
+  public String encode(String searchAfter) {
+    Objects.requireNonNull(searchAfter, "searchAfter shall be provided");
+    byte[] payload = searchAfter.getBytes(StandardCharsets.UTF_8);
+    return ENCODER.encodeToString(payload) + '.' + ENCODER.encodeToString(sign(payload));
+  }
+
+  /**
+   * @return the state of the cursor, null for {@value #FIRST_PAGE}
+   * @throws WebApplicationException with a 400 status if the cursor is malformed or tampered with
+   */
+  public String decode(String cursor) {
+    if (FIRST_PAGE.equals(cursor)) {
+      return null;
+    }
+    int separator = cursor != null ? cursor.indexOf('.') : -1;
+    if (separator < 0) {
+      throw invalidCursor();
+    }
+    try {
+      byte[] payload = DECODER.decode(cursor.substring(0, separator));
+      byte[] signature = DECODER.decode(cursor.substring(separator + 1));
+      if (!MessageDigest.isEqual(signature, sign(payload))) {
+        throw invalidCursor();
+      }
+      return new String(payload, StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw invalidCursor();
+    }
+  }
+
+  /**
+   * Cursor of the page following the given results.
+   *
+   * @param request the request of the current page
+   * @param results the records of the current page
+   * @param searchAfter the state to continue after a record, e.g. its sort values
+   * @return the cursor of the next page, null if the current page is the last one
+   */
+  public <T> String nextCursor(
+      CursorPagingRequest request, List<T> results, Function<T, String> searchAfter) {
+    if (results == null || results.isEmpty() || results.size() < request.getLimit()) {
+      return null;
+    }
+    return encode(searchAfter.apply(results.get(results.size() - 1)));
+  }
+
+  private byte[] sign(byte[] payload) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return mac.doFinal(payload);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Can't sign cursor", e);
+    }
+  }
+
+  private static WebApplicationException invalidCursor() {
+    return new WebApplicationException("Invalid cursor", HttpStatus.BAD_REQUEST);
+  }
+}
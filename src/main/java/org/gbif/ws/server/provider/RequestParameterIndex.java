@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.server.provider;
+
+import org.gbif.ws.util.CommonWsUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Query parameters of a request with a case-insensitive index of their names.
+ * <p>
+ * The index is built on the first case-insensitive lookup and kept for the whole request, so the
+ * providers resolving the arguments of a request share it through {@link #of(WebRequest)}. A lookup
+ * is then an exact map lookup followed, if needed, by a case-insensitive one, without converting
+ * the case of the parameter.
+ */
+public final class RequestParameterIndex {
+
+  /**
+   * Request attribute holding the index of the request.
+   */
+  public static final String ATTRIBUTE = RequestParameterIndex.class.getName();
+
+  private final Map<String, String[]> params;
+
+  // parameter names by case-insensitive name
+  private Map<String, List<String>> caseInsensitiveNames;
+
+  public RequestParameterIndex(Map<String, String[]> params) {
+    this.params = params != null ? params : Collections.emptyMap();
+  }
+
+  /**
+   * Gets the index of the request, creating it on the first call.
+   */
+  public static RequestParameterIndex of(WebRequest webRequest) {
+    Object index = webRequest.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    if (index instanceof RequestParameterIndex) {
+      return (RequestParameterIndex) index;
+    }
+    RequestParameterIndex newIndex = new RequestParameterIndex(webRequest.getParameterMap());
+    webRequest.setAttribute(ATTRIBUTE, newIndex, RequestAttributes.SCOPE_REQUEST);
+    return newIndex;
+  }
+
+  public Map<String, String[]> getParameterMap() {
+    return params;
+  }
+
+  /**
+   * @return the values of the parameter, matching its name exactly
+   */
+  public String[] get(String parameter) {
+    return params.get(parameter);
+  }
+
+  /**
+   * @return the first value of the parameter, matching its name exactly
+   */
+  public String getFirst(String parameter) {
+    return CommonWsUtils.getFirst(params, parameter);
+  }
+
+  /**
+   * Get the first parameter value, the parameter is searched in a case-insensitive manner.
+   * First tries with the exact match, then the lowercase and the uppercase value of the parameter
+   * and finally any other case, taking the first parameter found. Empty values are ignored.
+   */
+  public String getFirstIgnoringCase(String parameter) {
+    String value = CommonWsUtils.getFirst(params, parameter);
+    if (StringUtils.isNotEmpty(value)) {
+      return value;
+    }
+    List<String> names = caseInsensitiveNames().get(parameter);
+    if (names != null) {
+      for (String name : names) {
+        value = CommonWsUtils.getFirst(params, name);
+        if (StringUtils.isNotEmpty(value)) {
+          return value;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Same as {@link #getFirstIgnoringCase(String)} without building an index, for a single lookup
+   * in a parameter map.
+   */
+  public static String getFirstIgnoringCase(Map<String, String[]> params, String parameter) {
+    if (params == null) {
+      return null;
+    }
+    String value = CommonWsUtils.getFirst(params, parameter);
+    if (StringUtils.isNotEmpty(value)) {
+      return value;
+    }
+    // best value by case rank of its parameter name
+    String best = null;
+    int bestRank = Integer.MAX_VALUE;
+    for (String name : params.keySet()) {
+      if (name.equalsIgnoreCase(parameter)) {
+        int rank = caseRank(name);
+        if (rank < bestRank) {
+          value = CommonWsUtils.getFirst(params, name);
+          if (StringUtils.isNotEmpty(value)) {
+            best = value;
+            bestRank = rank;
+          }
+        }
+      }
+    }
+    return best;
+  }
+
+  private Map<String, List<String>> caseInsensitiveNames() {
+    if (caseInsensitiveNames == null) {
+      Map<String, List<String>> names = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      for (String name : params.keySet()) {
+        names.computeIfAbsent(name, k -> new ArrayList<>(1)).add(name);
+      }
+      // lower case names first, then upper case names, then the others in their order
+      Comparator<String> byCase = Comparator.comparingInt(RequestParameterIndex::caseRank);
+      for (List<String> sameNames : names.values()) {
+        if (sameNames.size() > 1) {
+          sameNames.sort(byCase);
+        }
+      }
+      caseInsensitiveNames = names;
+    }
+    return caseInsensitiveNames;
+  }
+
+  /**
+   * @return 0 for a name without upper case letters, 1 without lower case letters, 2 otherwise
+   */
+  private static int caseRank(String name) {
+    boolean upper = false;
+    boolean lower = false;
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      upper |= Character.isUpperCase(c);
+      lower |= Character.isLowerCase(c);
+    }
+    return !upper ? 0 : !lower ? 1 : 2;
+  }
+}
@@ -22,10 +22,13 @@ import org.gbif.ws.CommonRuntimeException;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -52,14 +55,22 @@ public class SearchRequestProvider<RT extends SearchRequest<P>, P extends Search
   private static final int MAX_PAGE_SIZE = 1000;
   private static final int NON_SPELL_CHECK_COUNT = -1;
 
+  // search parameter indexes by class, shared by all the providers of a class
+  private static final ClassValue<Map<String, Object>> SEARCH_PARAM_INDEXES =
+      new ClassValue<>() {
+        @Override
+        protected Map<String, Object> computeValue(Class<?> searchParameterClass) {
+          return buildSearchParamIndex(searchParameterClass);
+        }
+      };
+
   private final Class<P> searchParameterClass;
   private final Class<RT> requestType;
   private final Integer maxPageSize;
+  private final Map<String, Object> searchParamIndex;
 
   public SearchRequestProvider(Class<RT> requestType, Class<P> searchParameterClass) {
-    this.requestType = requestType;
-    this.searchParameterClass = searchParameterClass;
-    this.maxPageSize = MAX_PAGE_SIZE;
+    this(requestType, searchParameterClass, MAX_PAGE_SIZE);
   }
 
   public SearchRequestProvider(
@@ -67,6 +78,7 @@ public class SearchRequestProvider<RT extends SearchRequest<P>, P extends Search
     this.requestType = requestType;
     this.searchParameterClass = searchParameterClass;
     this.maxPageSize = maxPageSize;
+    this.searchParamIndex = SEARCH_PARAM_INDEXES.get(searchParameterClass);
   }
 
   @Override
@@ -83,32 +95,89 @@ public class SearchRequestProvider<RT extends SearchRequest<P>, P extends Search
     }
   }
 
+  /**
+   * Finds the search parameter of a name, ignoring case and the characters '.', ' ', '_' and '-'.
+   * The usual spellings of a parameter (e.g. TAXON_KEY, taxon_key, taxonKey, taxonkey) are found
+   * without normalising the name.
+   */
+  @SuppressWarnings("unchecked")
   protected P findSearchParam(String name) {
     if (StringUtils.isEmpty(name)) {
       return null;
-    } else {
-      String normedType = name.toUpperCase().replaceAll("[. _-]", "");
-      java.lang.reflect.Field[] values = searchParameterClass.getFields();
-      for (Field field : values) {
-
-        String fieldName = field.getName();
-        String normedVal = fieldName.replaceAll("[. _-]", "");
-        if (normedType.equals(normedVal)) {
-          try {
-            return (P) field.get(searchParameterClass);
-          } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-          }
-        }
+    }
+    Object param = searchParamIndex.get(name);
+    if (param == null) {
+      param = searchParamIndex.get(normalizeSearchParamName(name));
+    }
+    return (P) param;
+  }
+
+  /**
+   * Indexes the search parameters, i.e. the public static fields, of a class by their normalised
+   * name and their usual spellings.
+   */
+  private static Map<String, Object> buildSearchParamIndex(Class<?> searchParameterClass) {
+    Map<String, Object> index = new HashMap<>();
+    for (Field field : searchParameterClass.getFields()) {
+      if (!Modifier.isStatic(field.getModifiers())) {
+        continue;
+      }
+      Object param;
+      try {
+        param = field.get(null);
+      } catch (IllegalAccessException e) {
+        throw new RuntimeException(e);
       }
+      if (!searchParameterClass.isInstance(param)) {
+        continue;
+      }
+      String fieldName = field.getName();
+      // the first field of a normalised name wins, the spellings resolve to the same parameter
+      Object resolved = index.computeIfAbsent(normalizeSearchParamName(fieldName), k -> param);
+      index.putIfAbsent(fieldName, resolved);
+      index.putIfAbsent(fieldName.toLowerCase(Locale.ROOT), resolved);
+      index.putIfAbsent(fieldName.toUpperCase(Locale.ROOT), resolved);
+      index.putIfAbsent(toCamelCase(fieldName), resolved);
     }
-    return null;
+    return Collections.unmodifiableMap(index);
+  }
+
+  /**
+   * Upper cases the name and removes the characters '.', ' ', '_' and '-'.
+   */
+  private static String normalizeSearchParamName(String name) {
+    StringBuilder normalized = new StringBuilder(name.length());
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (c != '.' && c != ' ' && c != '_' && c != '-') {
+        normalized.append(Character.toUpperCase(c));
+      }
+    }
+    return normalized.toString();
+  }
+
+  /**
+   * TAXON_KEY to taxonKey.
+   */
+  private static String toCamelCase(String fieldName) {
+    StringBuilder camelCase = new StringBuilder(fieldName.length());
+    boolean upper = false;
+    for (int i = 0; i < fieldName.length(); i++) {
+      char c = fieldName.charAt(i);
+      if (c == '_') {
+        upper = camelCase.length() > 0;
+      } else {
+        camelCase.append(upper ? Character.toUpperCase(c) : Character.toLowerCase(c));
+        upper = false;
+      }
+    }
+    return camelCase.toString();
   }
 
   protected RT getSearchRequest(WebRequest webRequest, RT searchRequest) {
     searchRequest.copyPagingValues(PageableProvider.getPagingRequest(webRequest, maxPageSize));
 
-    final Map<String, String[]> params = webRequest.getParameterMap();
+    final Map<String, String[]> params = RequestParameterIndex.of(webRequest).getParameterMap();
 
     getSearchRequestFromQueryParams(searchRequest, params);
 
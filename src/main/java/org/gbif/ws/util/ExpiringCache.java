@@ -0,0 +1,177 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * A small in-memory cache whose entries expire a fixed time after they have been written.
+ * The cache is bounded, once the maximum size is reached the oldest written entry is evicted.
+ * Hits and misses are counted so the cache can be sized.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class ExpiringCache<K, V> {
+
+  private final int maxSize;
+  private final long expireAfterMillis;
+  private final Map<K, CacheEntry<V>> entries;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public ExpiringCache(int maxSize, Duration expireAfterWrite) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Cache maximum size must be positive");
+    }
+    Objects.requireNonNull(expireAfterWrite, "expireAfterWrite shall be provided");
+    this.maxSize = maxSize;
+    this.expireAfterMillis = expireAfterWrite.toMillis();
+    this.entries =
+        new LinkedHashMap<K, CacheEntry<V>>() {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+            return size() > ExpiringCache.this.maxSize;
+          }
+        };
+  }
+
+  protected long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+
+  /**
+   * Gets the cached value, or null if it is not cached or it has expired.
+   */
+  @Nullable
+  public V get(K key) {
+    CacheEntry<V> entry;
+    lock.readLock().lock();
+    try {
+      entry = entries.get(key);
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    if (entry == null || entry.expiresAt <= currentTimeMillis()) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return entry.value;
+  }
+
+  /**
+   * Caches the value using the default expiration time.
+   */
+  public void put(K key, V value) {
+    put(key, value, expireAfterMillis);
+  }
+
+  /**
+   * Caches the value using a specific expiration time, e.g. to keep negative results shorter.
+   */
+  public void put(K key, V value, Duration expireAfterWrite) {
+    put(key, value, expireAfterWrite.toMillis());
+  }
+
+  private void put(K key, V value, long expireAfter) {
+    Objects.requireNonNull(value, "Null values can't be cached");
+    CacheEntry<V> entry = new CacheEntry<>(value, currentTimeMillis() + expireAfter);
+    lock.writeLock().lock();
+    try {
+      // remove first so the entry is moved to the end of the eviction order
+      entries.remove(key);
+      entries.put(key, entry);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void invalidate(K key) {
+    lock.writeLock().lock();
+    try {
+      entries.remove(key);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes all entries whose value matches the predicate.
+   */
+  public void invalidateIf(Predicate<? super V> predicate) {
+    lock.writeLock().lock();
+    try {
+      entries.values().removeIf(entry -> predicate.test(entry.value));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void invalidateAll() {
+    lock.writeLock().lock();
+    try {
+      entries.clear();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Number of entries in the cache, it can include entries which have expired but not been
+   * evicted yet.
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  private static final class CacheEntry<V> {
+
+    private final V value;
+    private final long expiresAt;
+
+    private CacheEntry(V value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
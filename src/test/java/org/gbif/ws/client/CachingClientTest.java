@@ -0,0 +1,242 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CachingClientTest {
+
+  private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+  private final List<Request> requests = new ArrayList<>();
+
+  private static Request get(String url) {
+    return Request.create(
+        Request.HttpMethod.GET, url, Collections.emptyMap(), null, StandardCharsets.UTF_8, null);
+  }
+
+  private static Map<String, Collection<String>> headers(String... nameValues) {
+    Map<String, Collection<String>> headers = new HashMap<>();
+    for (int i = 0; i < nameValues.length; i += 2) {
+      headers.put(nameValues[i], Collections.singletonList(nameValues[i + 1]));
+    }
+    return headers;
+  }
+
+  /**
+   * Client answering 304 to the conditional requests and the given response otherwise.
+   */
+  private Client server(int status, Map<String, Collection<String>> headers, String body) {
+    return (request, options) -> {
+      requests.add(request);
+      boolean conditional = request.headers().containsKey("If-None-Match");
+      return Response.builder()
+          .request(request)
+          .status(conditional ? 304 : status)
+          .headers(headers)
+          .body(conditional ? null : body.getBytes(StandardCharsets.UTF_8))
+          .build();
+    };
+  }
+
+  private CachingClient cachingClient(Client server) {
+    InMemoryHttpResponseCache cache = new InMemoryHttpResponseCache();
+    return new CachingClient(server, cache, CachingClient.DEFAULT_MAX_BODY_SIZE, Runnable::run) {
+      @Override
+      protected long currentTimeMillis() {
+        return clock.get();
+      }
+    };
+  }
+
+  private static String body(Response response) throws IOException {
+    return IOUtils.toString(response.body().asInputStream(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testFreshResponseServedFromCache() throws IOException {
+    CachingClient client = cachingClient(server(200, headers("Cache-Control", "max-age=60"), "a"));
+
+    assertEquals("a", body(client.execute(get("http://localhost/a"), new Request.Options())));
+    clock.addAndGet(30_000);
+    Response cached = client.execute(get("http://localhost/a"), new Request.Options());
+
+    assertEquals("a", body(cached));
+    assertEquals("30", cached.headers().get("Age").iterator().next());
+    assertEquals(1, requests.size());
+    assertEquals(1, client.getHits());
+    assertEquals(0.5, client.getHitRate());
+  }
+
+  @Test
+  public void testStaleResponseRevalidated() throws IOException {
+    CachingClient client =
+        cachingClient(server(200, headers("Cache-Control", "max-age=60", "ETag", "\"v1\""), "a"));
+
+    client.execute(get("http://localhost/a"), new Request.Options());
+    clock.addAndGet(120_000);
+    Response revalidated = client.execute(get("http://localhost/a"), new Request.Options());
+
+    assertEquals(200, revalidated.status());
+    assertEquals("a", body(revalidated));
+    assertEquals(2, requests.size());
+    assertEquals("\"v1\"", requests.get(1).headers().get("If-None-Match").iterator().next());
+    assertEquals(1, client.getRevalidated());
+
+    // fresh again after the 304
+    client.execute(get("http://localhost/a"), new Request.Options());
+    assertEquals(2, requests.size());
+  }
+
+  @Test
+  public void testStaleWhileRevalidate() throws IOException {
+    CachingClient client =
+        cachingClient(
+            server(
+                200,
+                headers("Cache-Control", "max-age=60, stale-while-revalidate=60", "ETag", "\"v1\""),
+                "a"));
+
+    client.execute(get("http://localhost/a"), new Request.Options());
+    clock.addAndGet(90_000);
+    Response stale = client.execute(get("http://localhost/a"), new Request.Options());
+
+    assertEquals("a", body(stale));
+    assertEquals(1, client.getStaleHits());
+    // revalidated in the background, by the calling thread in this test
+    assertEquals(2, requests.size());
+  }
+
+  @Test
+  public void testMustRevalidateNeverServedStale() throws IOException {
+    CachingClient client =
+        cachingClient(
+            server(
+                200,
+                headers(
+                    "Cache-Control",
+                    "max-age=60, stale-while-revalidate=60, must-revalidate",
+                    "ETag",
+                    "\"v1\""),
+                "a"));
+
+    client.execute(get("http://localhost/a"), new Request.Options());
+    clock.addAndGet(90_000);
+    Response revalidated = client.execute(get("http://localhost/a"), new Request.Options());
+
+    assertEquals("a", body(revalidated));
+    assertEquals(0, client.getStaleHits());
+    assertEquals(1, client.getRevalidated());
+    assertEquals(2, requests.size());
+  }
+
+  @Test
+  public void testExpires() throws IOException {
+    CachingClient client =
+        cachingClient(
+            server(
+                200,
+                headers(
+                    "Date", "Tue, 14 Nov 2023 22:13:20 GMT",
+                    "Expires", "Tue, 14 Nov 2023 22:14:20 GMT"),
+                "a"));
+
+    client.execute(get("http://localhost/a"), new Request.Options());
+    client.execute(get("http://localhost/a"), new Request.Options());
+
+    assertEquals(1, requests.size());
+  }
+
+  @Test
+  public void testNoStoreNotCached() throws IOException {
+    CachingClient client = cachingClient(server(200, headers("Cache-Control", "no-store"), "a"));
+
+    client.execute(get("http://localhost/a"), new Request.Options());
+    client.execute(get("http://localhost/a"), new Request.Options());
+
+    assertEquals(2, requests.size());
+    assertEquals(0, client.getCache().size());
+  }
+
+  private static Request authorizedGet(String url) {
+    return Request.create(
+        Request.HttpMethod.GET,
+        url,
+        headers("Authorization", "GBIF user:signature"),
+        null,
+        StandardCharsets.UTF_8,
+        null);
+  }
+
+  @Test
+  public void testAuthorizedResponseNotCached() throws IOException {
+    CachingClient client = cachingClient(server(200, headers("Cache-Control", "max-age=60"), "a"));
+
+    client.execute(authorizedGet("http://localhost/a"), new Request.Options());
+    client.execute(get("http://localhost/a"), new Request.Options());
+
+    assertEquals(2, requests.size());
+  }
+
+  @Test
+  public void testAuthorizedPublicResponseCached() throws IOException {
+    CachingClient client =
+        cachingClient(server(200, headers("Cache-Control", "public, max-age=60"), "a"));
+
+    client.execute(authorizedGet("http://localhost/a"), new Request.Options());
+    client.execute(get("http://localhost/a"), new Request.Options());
+
+    assertEquals(1, requests.size());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEvicted() {
+    InMemoryHttpResponseCache cache = new InMemoryHttpResponseCache(2, 1024);
+    Response response =
+        Response.builder()
+            .request(get("http://localhost/a"))
+            .status(200)
+            .headers(headers("Cache-Control", "max-age=60"))
+            .build();
+    CachedResponse cached = CachedResponse.of(response, new byte[10], clock.get());
+
+    cache.put("a", cached);
+    cache.put("b", cached);
+    cache.get("a");
+    cache.put("c", cached);
+
+    assertNotNull(cache.get("a"));
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("c"));
+    assertEquals(2 * cached.size(), cache.getBytes());
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Request;
+import feign.Response;
+import feign.RetryableException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CircuitBreakerTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  private static final CircuitBreaker.Config CONFIG =
+      CircuitBreaker.Config.builder()
+          .slidingWindowSize(4)
+          .minimumNumberOfCalls(4)
+          .failureRateThreshold(50)
+          .slowCallDurationThreshold(Duration.ofSeconds(1))
+          .slowCallRateThreshold(75)
+          .waitDurationInOpenState(Duration.ofSeconds(10))
+          .permittedCallsInHalfOpenState(2)
+          .build();
+
+  private static RetryableException unavailable() {
+    Request request =
+        Request.create(
+            Request.HttpMethod.GET,
+            "http://localhost/test",
+            Collections.emptyMap(),
+            null,
+            StandardCharsets.UTF_8,
+            null);
+    return new RetryableException(
+        503, "unavailable", Request.HttpMethod.GET, (Long) null, request);
+  }
+
+  private void call(CircuitBreaker breaker, long durationMillis, Throwable error) {
+    breaker.acquirePermission();
+    breaker.onResult(Duration.ofMillis(durationMillis).toNanos(), error);
+  }
+
+  @Test
+  public void testOpensOnFailureRate() {
+    CircuitBreaker breaker = new CircuitBreaker("test", CONFIG, clock::get);
+
+    call(breaker, 10, null);
+    call(breaker, 10, unavailable());
+    call(breaker, 10, null);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+    call(breaker, 10, unavailable());
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertThrows(CircuitBreakerOpenException.class, breaker::acquirePermission);
+  }
+
+  private static Exception decode(Request.HttpMethod method, int status) {
+    Request request =
+        Request.create(
+            method,
+            "http://localhost/test",
+            Collections.emptyMap(),
+            null,
+            StandardCharsets.UTF_8,
+            null);
+    return new ClientErrorDecoder()
+        .decode(
+            "test",
+            Response.builder()
+                .request(request)
+                .status(status)
+                .headers(Collections.emptyMap())
+                .build());
+  }
+
+  @Test
+  public void testDecodedStatusClassification() {
+    assertTrue(CircuitBreaker.isServerFailure(decode(Request.HttpMethod.GET, 503)));
+    assertTrue(CircuitBreaker.isServerFailure(decode(Request.HttpMethod.POST, 503)));
+    assertTrue(CircuitBreaker.isServerFailure(decode(Request.HttpMethod.POST, 502)));
+    assertTrue(CircuitBreaker.isServerFailure(decode(Request.HttpMethod.GET, 500)));
+    assertTrue(CircuitBreaker.isServerFailure(decode(Request.HttpMethod.GET, 507)));
+    assertFalse(CircuitBreaker.isServerFailure(decode(Request.HttpMethod.GET, 429)));
+    assertFalse(CircuitBreaker.isServerFailure(decode(Request.HttpMethod.GET, 501)));
+    assertFalse(CircuitBreaker.isServerFailure(decode(Request.HttpMethod.GET, 400)));
+    assertFalse(CircuitBreaker.isServerFailure(decode(Request.HttpMethod.GET, 409)));
+  }
+
+  @Test
+  public void testPostsAnswered503OpenTheBreaker() {
+    CircuitBreaker breaker = new CircuitBreaker("test", CONFIG, clock::get);
+
+    for (int i = 0; i < 4; i++) {
+      call(breaker, 10, decode(Request.HttpMethod.POST, 503));
+    }
+
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  @Test
+  public void testInvalidConfig() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new CircuitBreaker(
+                "test", CircuitBreaker.Config.builder().slidingWindowSize(0).build()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new CircuitBreaker(
+                "test",
+                CircuitBreaker.Config.builder()
+                    .slidingWindowSize(10)
+                    .minimumNumberOfCalls(20)
+                    .build()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new CircuitBreaker(
+                "test",
+                CircuitBreaker.Config.builder()
+                    .slidingWindowSize(10)
+                    .minimumNumberOfCalls(5)
+                    .permittedCallsInHalfOpenState(20)
+                    .build()));
+  }
+
+  @Test
+  public void testClientErrorsAreNotFailures() {
+    CircuitBreaker breaker = new CircuitBreaker("test", CONFIG, clock::get);
+
+    for (int i = 0; i < 10; i++) {
+      call(breaker, 10, new IllegalArgumentException("A bad request received"));
+    }
+
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  public void testOpensOnSlowCallRate() {
+    CircuitBreaker breaker = new CircuitBreaker("test", CONFIG, clock::get);
+
+    call(breaker, 10, null);
+    call(breaker, 2000, null);
+    call(breaker, 2000, null);
+    call(breaker, 2000, null);
+
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  @Test
+  public void testHalfOpenAfterWaitDuration() {
+    CircuitBreaker breaker = new CircuitBreaker("test", CONFIG, clock::get);
+    for (int i = 0; i < 4; i++) {
+      call(breaker, 10, unavailable());
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+    clock.addAndGet(Duration.ofSeconds(10).toNanos());
+    breaker.acquirePermission();
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    breaker.acquirePermission();
+    // only 2 calls are permitted while half-open
+    assertThrows(CircuitBreakerOpenException.class, breaker::acquirePermission);
+
+    breaker.onResult(0, null);
+    breaker.onResult(0, null);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  public void testReopensWhenHalfOpenCallsFail() {
+    CircuitBreaker breaker = new CircuitBreaker("test", CONFIG, clock::get);
+    for (int i = 0; i < 4; i++) {
+      call(breaker, 10, unavailable());
+    }
+
+    clock.addAndGet(Duration.ofSeconds(10).toNanos());
+    call(breaker, 10, unavailable());
+    call(breaker, 10, null);
+
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  @Test
+  public void testFallback() throws Throwable {
+    Method method = Object.class.getMethod("toString");
+    CircuitBreaker breaker = new CircuitBreaker("test", CONFIG, clock::get);
+    MethodHandler failing =
+        args -> {
+          throw unavailable();
+        };
+    MethodHandler guarded =
+        new CircuitBreakerInvocationHandlerFactory.GuardedMethodHandler(
+            method, failing, breaker, (m, args, cause) -> cause.getClass().getSimpleName());
+
+    for (int i = 0; i < 4; i++) {
+      assertEquals("RetryableException", guarded.invoke(new Object[0]));
+    }
+    assertEquals("CircuitBreakerOpenException", guarded.invoke(new Object[0]));
+  }
+
+  @Test
+  public void testAsyncOpenBreaker() throws Throwable {
+    Method method = CompletableFuture.class.getMethod("toCompletableFuture");
+    CircuitBreaker breaker = new CircuitBreaker("test", CONFIG, clock::get);
+    MethodHandler failing = args -> CompletableFuture.failedFuture(unavailable());
+    MethodHandler guarded =
+        new CircuitBreakerInvocationHandlerFactory.GuardedMethodHandler(
+            method, failing, breaker, null);
+
+    for (int i = 0; i < 4; i++) {
+      CompletableFuture<?> future = (CompletableFuture<?>) guarded.invoke(new Object[0]);
+      ExecutionException e = assertThrows(ExecutionException.class, future::get);
+      assertInstanceOf(RetryableException.class, e.getCause());
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+    // the open breaker is reported by the returned future, not thrown
+    CompletableFuture<?> future = (CompletableFuture<?>) guarded.invoke(new Object[0]);
+    ExecutionException e = assertThrows(ExecutionException.class, future::get);
+    assertInstanceOf(CircuitBreakerOpenException.class, e.getCause());
+  }
+
+  @Test
+  public void testAsyncFallback() throws Throwable {
+    Method method = CompletableFuture.class.getMethod("toCompletableFuture");
+    CircuitBreaker breaker = new CircuitBreaker("test", CONFIG, clock::get);
+    MethodHandler failing = args -> CompletableFuture.failedFuture(unavailable());
+    MethodHandler guarded =
+        new CircuitBreakerInvocationHandlerFactory.GuardedMethodHandler(
+            method, failing, breaker, (m, args, cause) -> cause.getClass().getSimpleName());
+
+    for (int i = 0; i < 4; i++) {
+      assertEquals(
+          "RetryableException", ((CompletableFuture<?>) guarded.invoke(new Object[0])).get());
+    }
+    assertEquals(
+        "CircuitBreakerOpenException",
+        ((CompletableFuture<?>) guarded.invoke(new Object[0])).get());
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the clients created by {@link ClientBuilder#buildAsync(Class)} against a WireMock server.
+ */
+public class ClientBuilderTest {
+
+  public static class Species {
+    public int key;
+    public String name;
+  }
+
+  interface SpeciesClient {
+
+    @GetMapping("species/{key}")
+    CompletableFuture<Species> getAsync(@PathVariable("key") int key);
+
+    @GetMapping("species/{key}")
+    Species get(@PathVariable("key") int key);
+  }
+
+  private static WireMockServer server;
+
+  @BeforeAll
+  public static void startServer() {
+    server = new WireMockServer(WireMockConfiguration.options().dynamicPort());
+    server.start();
+    server.stubFor(
+        get(urlEqualTo("/species/1"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader("Content-Type", "application/json")
+                    .withBody("{\"key\":1,\"name\":\"Animalia\"}")));
+    server.stubFor(get(urlEqualTo("/species/0")).willReturn(aResponse().withStatus(400)));
+  }
+
+  @AfterAll
+  public static void stopServer() {
+    server.stop();
+  }
+
+  private static SpeciesClient newClient() {
+    return new ClientBuilder()
+        .withUrl(server.baseUrl())
+        .withObjectMapper(new ObjectMapper())
+        .buildAsync(SpeciesClient.class);
+  }
+
+  @Test
+  public void testCompletableFutureReturn() throws Exception {
+    CompletableFuture<Species> future = newClient().getAsync(1);
+
+    Species species = future.get(10, TimeUnit.SECONDS);
+    assertEquals(1, species.key);
+    assertEquals("Animalia", species.name);
+  }
+
+  @Test
+  public void testBlockingReturn() {
+    Species species = newClient().get(1);
+
+    assertEquals(1, species.key);
+    assertEquals("Animalia", species.name);
+    server.verify(getRequestedFor(urlEqualTo("/species/1")));
+  }
+
+  @Test
+  public void testErrorResponses() {
+    SpeciesClient client = newClient();
+
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class, () -> client.getAsync(0).get(10, TimeUnit.SECONDS));
+    assertInstanceOf(IllegalArgumentException.class, e.getCause());
+    assertThrows(IllegalArgumentException.class, () -> client.get(0));
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import feign.Request;
+import feign.Response;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClientDecoderTest {
+
+  private static final String JSON_ARRAY = "[{\"key\":1},{\"key\":2},{\"key\":3}]";
+
+  private final ClientDecoder decoder = new ClientDecoder(new ObjectMapper());
+
+  interface StreamingService {
+    Stream<Map<String, Integer>> stream();
+
+    Iterator<Map<String, Integer>> iterator();
+  }
+
+  /**
+   * Body stream recording whether it has been closed.
+   */
+  private static class TrackedInputStream extends ByteArrayInputStream {
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    TrackedInputStream(String content) {
+      super(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void close() throws IOException {
+      closed.set(true);
+      super.close();
+    }
+  }
+
+  private static Response response(String contentType, InputStream body) {
+    Map<String, Collection<String>> headers =
+        Collections.singletonMap(HttpHeaders.CONTENT_TYPE, Collections.singletonList(contentType));
+    return Response.builder()
+        .status(200)
+        .headers(headers)
+        .body(body, null)
+        .request(
+            Request.create(
+                Request.HttpMethod.GET,
+                "http://api.gbif.org/v1/dataset",
+                Collections.emptyMap(),
+                null,
+                StandardCharsets.UTF_8,
+                null))
+        .build();
+  }
+
+  private static Type returnType(String method) throws NoSuchMethodException {
+    return StreamingService.class.getMethod(method).getGenericReturnType();
+  }
+
+  @Test
+  public void testStream() throws Exception {
+    TrackedInputStream body = new TrackedInputStream(JSON_ARRAY);
+    @SuppressWarnings("unchecked")
+    Stream<Map<String, Integer>> stream =
+        (Stream<Map<String, Integer>>)
+            decoder.decode(response("application/json", body), returnType("stream"));
+
+    assertFalse(body.closed.get());
+    try (Stream<Map<String, Integer>> elements = stream) {
+      assertEquals(
+          Arrays.asList(1, 2, 3),
+          elements.map(element -> element.get("key")).collect(Collectors.toList()));
+    }
+    assertTrue(body.closed.get());
+  }
+
+  @Test
+  public void testIteratorClosedWhenConsumed() throws Exception {
+    TrackedInputStream body = new TrackedInputStream(JSON_ARRAY);
+    @SuppressWarnings("unchecked")
+    Iterator<Map<String, Integer>> iterator =
+        (Iterator<Map<String, Integer>>)
+            decoder.decode(response("application/json", body), returnType("iterator"));
+
+    int count = 0;
+    while (iterator.hasNext()) {
+      iterator.next();
+      count++;
+    }
+    assertEquals(3, count);
+    assertTrue(body.closed.get());
+  }
+
+  @Test
+  public void testInputStreamAndFile() throws Exception {
+    TrackedInputStream body = new TrackedInputStream("binary");
+    Response response = response("application/octet-stream", body);
+    try (InputStream in = (InputStream) decoder.decode(response, InputStream.class)) {
+      assertFalse(body.closed.get());
+      assertEquals("binary", IOUtils.toString(in, StandardCharsets.UTF_8));
+    }
+    assertTrue(body.closed.get());
+
+    TrackedInputStream fileBody = new TrackedInputStream("binary");
+    Path file = (Path) decoder.decode(response("application/octet-stream", fileBody), Path.class);
+    try {
+      assertArrayEquals("binary".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(file));
+      assertTrue(fileBody.closed.get());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testRegularTypesClosed() throws Exception {
+    TrackedInputStream body = new TrackedInputStream(JSON_ARRAY);
+    List<?> list = (List<?>) decoder.decode(response("application/json", body), List.class);
+    assertEquals(3, list.size());
+    assertTrue(body.closed.get());
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import feign.Request;
+import feign.Response;
+import feign.RetryableException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClientErrorDecoderTest {
+
+  private static final long NOW = 1_700_000_000_000L;
+
+  private final ClientErrorDecoder decoder =
+      new ClientErrorDecoder() {
+        @Override
+        protected long currentTimeMillis() {
+          return NOW;
+        }
+      };
+
+  private static Request request(Request.HttpMethod method) {
+    return Request.create(
+        method,
+        "http://localhost/test",
+        Collections.emptyMap(),
+        null,
+        StandardCharsets.UTF_8,
+        null);
+  }
+
+  private static Response response(
+      Request.HttpMethod method, int status, Map<String, Collection<String>> headers) {
+    return Response.builder().request(request(method)).status(status).headers(headers).build();
+  }
+
+  @Test
+  public void testRetryAfterSeconds() {
+    Exception e =
+        decoder.decode(
+            "test",
+            response(
+                Request.HttpMethod.GET,
+                429,
+                Collections.singletonMap("retry-after", Collections.singletonList("120"))));
+
+    assertInstanceOf(RetryableException.class, e);
+    assertEquals(NOW + 120_000, ((RetryableException) e).retryAfter());
+  }
+
+  @Test
+  public void testRetryAfterHttpDate() {
+    Exception e =
+        decoder.decode(
+            "test",
+            response(
+                Request.HttpMethod.GET,
+                503,
+                Collections.singletonMap(
+                    "Retry-After", Collections.singletonList("Wed, 21 Oct 2015 07:28:00 GMT"))));
+
+    assertInstanceOf(RetryableException.class, e);
+    assertEquals(1445412480000L, ((RetryableException) e).retryAfter());
+  }
+
+  @Test
+  public void testInvalidRetryAfterIgnored() {
+    Exception e =
+        decoder.decode(
+            "test",
+            response(
+                Request.HttpMethod.GET,
+                500,
+                Collections.singletonMap("Retry-After", Collections.singletonList("soon"))));
+
+    assertInstanceOf(RetryableException.class, e);
+    assertNull(((RetryableException) e).retryAfter());
+  }
+
+  @Test
+  public void testGatewayErrorsRetryableForIdempotentMethods() {
+    for (int status : new int[] {502, 503, 504}) {
+      assertInstanceOf(
+          RetryableException.class,
+          decoder.decode("test", response(Request.HttpMethod.GET, status, Collections.emptyMap())));
+      assertInstanceOf(
+          RetryableException.class,
+          decoder.decode("test", response(Request.HttpMethod.PUT, status, Collections.emptyMap())));
+      assertFalse(
+          decoder.decode("test", response(Request.HttpMethod.POST, status, Collections.emptyMap()))
+              instanceof RetryableException);
+    }
+  }
+
+  /**
+   * Exception thrown by Feign when the client fails with an I/O error.
+   */
+  private static RetryableException ioError(Request.HttpMethod method, IOException cause) {
+    return new RetryableException(
+        -1, cause.getMessage(), method, cause, (Long) null, request(method));
+  }
+
+  @Test
+  public void testConnectionResetRetriedForIdempotentMethods() {
+    IOException reset = new SocketException("Connection reset");
+
+    assertTrue(ClientRetryer.isSafeToRetry(ioError(Request.HttpMethod.GET, reset)));
+    assertFalse(ClientRetryer.isSafeToRetry(ioError(Request.HttpMethod.POST, reset)));
+    assertTrue(
+        ClientRetryer.isSafeToRetry(
+            ioError(Request.HttpMethod.POST, new ConnectException("Connection refused"))));
+  }
+}
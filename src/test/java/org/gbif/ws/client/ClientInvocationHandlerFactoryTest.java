@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClientInvocationHandlerFactoryTest {
+
+  interface CrudClient<T, K> {
+    T get(K key);
+
+    String delete(K key);
+  }
+
+  interface Pageable {}
+
+  interface Query {}
+
+  interface ListClient<Q> {
+    String list(Q query);
+  }
+
+  interface DatasetClient extends CrudClient<String, UUID>, ListClient<Query> {
+    @Override
+    String get(UUID key);
+
+    String list(int limit);
+
+    String list(Pageable page);
+
+    @Override
+    String list(Query query);
+  }
+
+  interface SearchClient {
+    <Q> String search(Q query);
+  }
+
+  interface DatasetSearchClient extends SearchClient {
+    String search(Pageable page);
+
+    String search(Query query);
+  }
+
+  private static DatasetClient newClient(Map<Method, MethodHandler> dispatch) {
+    Target<DatasetClient> target =
+        new Target.HardCodedTarget<>(DatasetClient.class, "http://api.gbif.org");
+    InvocationHandler handler = new ClientInvocationHandlerFactory().create(target, dispatch);
+    return (DatasetClient)
+        Proxy.newProxyInstance(
+            DatasetClient.class.getClassLoader(), new Class<?>[] {DatasetClient.class}, handler);
+  }
+
+  @Test
+  public void testDispatch() throws Exception {
+    Map<Method, MethodHandler> dispatch = new HashMap<>();
+    dispatch.put(DatasetClient.class.getMethod("get", UUID.class), args -> "get " + args[0]);
+    dispatch.put(DatasetClient.class.getMethod("list", int.class), args -> "list " + args[0]);
+    // only the generic parent method is in the dispatch map
+    dispatch.put(CrudClient.class.getMethod("delete", Object.class), args -> "delete " + args[0]);
+
+    DatasetClient client = newClient(dispatch);
+    UUID key = UUID.randomUUID();
+    assertEquals("get " + key, client.get(key));
+    assertEquals("list 10", client.list(10));
+    assertEquals("delete " + key, client.delete(key));
+    // generic parent method resolved to the override
+    @SuppressWarnings("unchecked")
+    CrudClient<String, UUID> crudClient = client;
+    assertEquals("get " + key, crudClient.get(key));
+    // repeated calls use the same handlers
+    assertEquals("list 20", client.list(20));
+
+    assertTrue(client.toString().contains("DatasetClient"));
+    assertEquals(client, client);
+    assertEquals(client.hashCode(), client.hashCode());
+    assertNotEquals(client, "other");
+  }
+
+  @Test
+  public void testOverloads() throws Exception {
+    Map<Method, MethodHandler> dispatch = new HashMap<>();
+    dispatch.put(DatasetClient.class.getMethod("list", int.class), args -> "limit");
+    dispatch.put(DatasetClient.class.getMethod("list", Pageable.class), args -> "page");
+    dispatch.put(DatasetClient.class.getMethod("list", Query.class), args -> "query");
+
+    DatasetClient client = newClient(dispatch);
+    Pageable page = new Pageable() {};
+    Query query = new Query() {};
+    assertEquals("limit", client.list(10));
+    assertEquals("page", client.list(page));
+    assertEquals("query", client.list(query));
+    // the erased list(Object) of the parent is resolved to list(Query), not list(Pageable)
+    ListClient<Query> listClient = client;
+    assertEquals("query", listClient.list(query));
+  }
+
+  @Test
+  public void testAmbiguousOverloads() throws Exception {
+    Map<Method, MethodHandler> dispatch = new HashMap<>();
+    dispatch.put(DatasetSearchClient.class.getMethod("search", Pageable.class), args -> "page");
+    dispatch.put(DatasetSearchClient.class.getMethod("search", Query.class), args -> "query");
+
+    // the generic search(Object) of the parent matches both overloads
+    Target<DatasetSearchClient> target =
+        new Target.HardCodedTarget<>(DatasetSearchClient.class, "http://api.gbif.org");
+    assertThrows(
+        IllegalStateException.class,
+        () -> new ClientInvocationHandlerFactory().create(target, dispatch));
+  }
+}
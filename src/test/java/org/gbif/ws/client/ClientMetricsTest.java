@@ -0,0 +1,108 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.http.pool.PoolStats;
+import org.junit.jupiter.api.Test;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.RetryableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClientMetricsTest {
+
+  private static final Request REQUEST =
+      Request.create(
+          Request.HttpMethod.GET,
+          "http://localhost/test",
+          Collections.emptyMap(),
+          null,
+          StandardCharsets.UTF_8,
+          null);
+
+  @Test
+  public void testRequestsTimedByStatus() throws IOException {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    ClientMetrics metrics = new ClientMetrics(registry, "TestClient");
+    Client ok =
+        (request, options) ->
+            Response.builder().request(request).status(200).headers(Collections.emptyMap()).build();
+    Client failing =
+        (request, options) -> {
+          throw new IOException("Connection reset");
+        };
+
+    new MeteredClient(ok, metrics).execute(REQUEST, new Request.Options());
+    new MeteredClient(ok, metrics).execute(REQUEST, new Request.Options());
+    assertThrows(
+        IOException.class,
+        () -> new MeteredClient(failing, metrics).execute(REQUEST, new Request.Options()));
+
+    assertEquals(
+        2,
+        registry.get(ClientMetrics.REQUESTS).tag("client", "TestClient").tag("status", "200")
+            .timer()
+            .count());
+    assertEquals(
+        1,
+        registry.get(ClientMetrics.REQUESTS).tag("status", ClientMetrics.STATUS_IO_ERROR)
+            .timer()
+            .count());
+  }
+
+  @Test
+  public void testRetriesCounted() {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    ClientMetrics metrics = new ClientMetrics(registry, "TestClient");
+    RetryableException e =
+        new RetryableException(503, "unavailable", Request.HttpMethod.GET, (Long) null, REQUEST);
+
+    metrics.recordRetry(e);
+    metrics.recordRetry(e);
+
+    assertEquals(2, registry.get(ClientMetrics.RETRIES).counter().count());
+  }
+
+  @Test
+  public void testPoolGauges() {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    ClientMetrics metrics = new ClientMetrics(registry, "TestClient");
+    AtomicReference<PoolStats> stats = new AtomicReference<>(new PoolStats(3, 1, 2, 10));
+
+    metrics.bindPool(stats::get);
+    // the gauges keep the supplier
+    System.gc();
+
+    assertEquals(3, registry.get(ClientMetrics.POOL + ".leased").gauge().value());
+    assertEquals(1, registry.get(ClientMetrics.POOL + ".pending").gauge().value());
+    assertEquals(2, registry.get(ClientMetrics.POOL + ".available").gauge().value());
+    assertEquals(10, registry.get(ClientMetrics.POOL + ".max").gauge().value());
+
+    // closed pool
+    stats.set(null);
+    assertTrue(Double.isNaN(registry.get(ClientMetrics.POOL + ".leased").gauge().value()));
+  }
+}
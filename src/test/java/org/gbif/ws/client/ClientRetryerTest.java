@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import feign.Request;
+import feign.RetryableException;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClientRetryerTest {
+
+  private static RetryableException unavailable() {
+    Request request =
+        Request.create(
+            Request.HttpMethod.GET,
+            "http://localhost/test",
+            Collections.emptyMap(),
+            null,
+            StandardCharsets.UTF_8,
+            null);
+    return new RetryableException(
+        503, "unavailable", Request.HttpMethod.GET, (Long) null, request);
+  }
+
+  @Test
+  public void testFullJitterWithinExponentialInterval() {
+    ClientRetryer retryer =
+        new ClientRetryer(100, 10, 2, 1000).withJitter(ClientRetryer.Jitter.FULL);
+
+    for (int attempt = 1; attempt < 10; attempt++) {
+      retryer.attempt = attempt;
+      long interval = retryer.nextInterval();
+      assertTrue(interval >= 0 && interval <= retryer.nextMaxInterval());
+    }
+  }
+
+  @Test
+  public void testDecorrelatedJitterWithinBounds() {
+    ClientRetryer retryer =
+        new ClientRetryer(100, 10, 2, 1000).withJitter(ClientRetryer.Jitter.DECORRELATED);
+
+    long previous = 100;
+    for (int i = 0; i < 50; i++) {
+      long interval = retryer.nextInterval();
+      assertTrue(interval >= 100 && interval <= Math.min(1000, previous * 3));
+      previous = interval;
+    }
+  }
+
+  @Test
+  public void testNoJitterIsExponential() {
+    ClientRetryer retryer = new ClientRetryer(100, 10, 2, 1000);
+    retryer.attempt = 3;
+
+    assertEquals(400, retryer.nextInterval());
+  }
+
+  @Test
+  public void testRetryBudgetSharedByClones() {
+    RetryBudget budget = new RetryBudget(0.5, 2);
+    ClientRetryer retryer = new ClientRetryer(1, 5, 1).withRetryBudget(budget);
+
+    assertDoesNotThrow(() -> ((ClientRetryer) retryer.clone()).continueOrPropagate(unavailable()));
+    assertDoesNotThrow(() -> ((ClientRetryer) retryer.clone()).continueOrPropagate(unavailable()));
+    assertThrows(
+        RetryableException.class,
+        () -> ((ClientRetryer) retryer.clone()).continueOrPropagate(unavailable()));
+    assertEquals(2, budget.getRetries(MethodKeys.UNKNOWN));
+
+    // two successful requests allow one more retry
+    budget.deposit();
+    budget.deposit();
+    assertEquals(1, budget.getAvailableRetries());
+    assertDoesNotThrow(() -> ((ClientRetryer) retryer.clone()).continueOrPropagate(unavailable()));
+  }
+
+  @Test
+  public void testCloneKeepsTypeAndSettings() {
+    ClientRetryer retryer =
+        new ClientRetryer(100, 10, 2, 1000) {
+          @Override
+          protected long currentTimeMillis() {
+            return 42;
+          }
+        }.withJitter(ClientRetryer.Jitter.FULL);
+    retryer.attempt = 5;
+
+    ClientRetryer clone = (ClientRetryer) retryer.withRetryBudget(new RetryBudget(0.1, 10)).clone();
+
+    assertEquals(retryer.getClass(), clone.getClass());
+    assertEquals(42, clone.currentTimeMillis());
+    assertEquals(1, clone.attempt);
+    for (int i = 0; i < 20; i++) {
+      // full jitter kept
+      assertTrue(clone.nextInterval() <= 100);
+    }
+  }
+
+  @Test
+  public void testRetryBudgetCapped() {
+    RetryBudget budget = new RetryBudget(1, 3);
+
+    for (int i = 0; i < 10; i++) {
+      budget.deposit();
+    }
+
+    assertEquals(3, budget.getAvailableRetries());
+  }
+}
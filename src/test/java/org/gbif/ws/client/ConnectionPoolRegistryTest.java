@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import org.gbif.ws.client.ClientBuilder.ConnectionPoolConfig;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ConnectionPoolRegistryTest {
+
+  interface PingClient {
+
+    @GetMapping("ping")
+    String ping();
+  }
+
+  private static ConnectionPoolConfig config(int maxConnections) {
+    return ConnectionPoolConfig.builder()
+        .timeout(1000)
+        .maxConnections(maxConnections)
+        .maxPerRoute(maxConnections)
+        .idleTimeout(30_000L)
+        .timeToLive(60_000L)
+        .validateAfterInactivity(2000)
+        .build();
+  }
+
+  @Test
+  public void testSameHostAndConfigShareThePool() {
+    ConnectionPoolRegistry registry = new ConnectionPoolRegistry();
+
+    CloseableHttpClient first = registry.acquire("https://api.gbif.org/v1/", config(10));
+    CloseableHttpClient second =
+        registry.acquire("https://api.gbif.org/v1/occurrence/", config(10));
+
+    assertSame(first, second);
+    assertEquals(2, registry.getReferences("https://api.gbif.org/", config(10)));
+    assertNotNull(registry.getPoolStats("https://api.gbif.org/", config(10)));
+    registry.closeAll();
+  }
+
+  @Test
+  public void testDifferentHostOrConfigUseAnotherPool() {
+    ConnectionPoolRegistry registry = new ConnectionPoolRegistry();
+
+    CloseableHttpClient client = registry.acquire("https://api.gbif.org/v1/", config(10));
+
+    assertNotSame(client, registry.acquire("https://api.gbif-uat.org/v1/", config(10)));
+    assertNotSame(client, registry.acquire("https://api.gbif.org/v1/", config(20)));
+    assertNotSame(client, registry.acquire("http://api.gbif.org/v1/", config(10)));
+    registry.closeAll();
+  }
+
+  @Test
+  public void testPoolClosedWithLastReference() {
+    ConnectionPoolRegistry registry = new ConnectionPoolRegistry();
+    String url = "https://api.gbif.org/v1/";
+
+    CloseableHttpClient client = registry.acquire(url, config(10));
+    registry.acquire(url, config(10));
+
+    registry.release(url, config(10));
+    assertEquals(1, registry.getReferences(url, config(10)));
+
+    registry.release(url, config(10));
+    assertEquals(0, registry.getReferences(url, config(10)));
+    assertNull(registry.getPoolStats(url, config(10)));
+
+    // a new pool is created once the previous one is closed
+    assertNotSame(client, registry.acquire(url, config(10)));
+    registry.closeAll();
+  }
+
+  @Test
+  public void testBuilderReleasesItsPools() {
+    ConnectionPoolRegistry registry = new ConnectionPoolRegistry();
+    String url = "https://api.gbif.org/v1/";
+    ClientBuilder builder =
+        new ClientBuilder()
+            .withUrl(url)
+            .withObjectMapper(new ObjectMapper())
+            .withConnectionPoolConfig(config(10))
+            .withConnectionPoolRegistry(registry);
+
+    builder.build(PingClient.class);
+    builder.build(PingClient.class);
+    assertEquals(2, registry.getReferences(url, config(10)));
+
+    builder.releaseConnectionPools();
+    assertEquals(0, registry.getReferences(url, config(10)));
+    assertNull(registry.getPoolStats(url, config(10)));
+  }
+}
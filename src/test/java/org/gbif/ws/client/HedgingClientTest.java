@@ -0,0 +1,187 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HedgingClientTest {
+
+  private static final HedgingClient.Config CONFIG =
+      HedgingClient.Config.builder()
+          .initialDelay(Duration.ofMillis(50))
+          .minimumDelay(Duration.ofMillis(1))
+          .minimumSamples(10)
+          .windowSize(100)
+          .build();
+
+  private static Request request(Request.HttpMethod method) {
+    return Request.create(
+        method,
+        "http://localhost/test",
+        Collections.emptyMap(),
+        null,
+        StandardCharsets.UTF_8,
+        null);
+  }
+
+  private static Response response(Request request, int status, AtomicBoolean closed) {
+    return Response.builder()
+        .request(request)
+        .status(status)
+        .headers(Collections.emptyMap())
+        .body(
+            new ByteArrayInputStream(new byte[0]) {
+              @Override
+              public void close() {
+                closed.set(true);
+              }
+            },
+            0)
+        .build();
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    awaitQuietly(latch, 5000);
+  }
+
+  private static void awaitQuietly(CountDownLatch latch, long millis) {
+    try {
+      latch.await(millis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Test
+  public void testSlowRequestHedged() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicBoolean slowClosed = new AtomicBoolean();
+    Client delegate =
+        (request, options) -> {
+          if (calls.incrementAndGet() == 1) {
+            // slow backend node
+            awaitQuietly(release);
+            return response(request, 500, slowClosed);
+          }
+          return response(request, 200, new AtomicBoolean());
+        };
+
+    Response response =
+        new HedgingClient(delegate, CONFIG)
+            .execute(request(Request.HttpMethod.GET), new Request.Options());
+
+    assertEquals(200, response.status());
+    assertEquals(2, calls.get());
+
+    // the response of the cancelled request is closed when it arrives
+    release.countDown();
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!slowClosed.get() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertTrue(slowClosed.get());
+  }
+
+  @Test
+  public void testFastRequestNotHedged() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    Client delegate =
+        (request, options) -> {
+          calls.incrementAndGet();
+          return response(request, 200, new AtomicBoolean());
+        };
+
+    new HedgingClient(delegate, CONFIG)
+        .execute(request(Request.HttpMethod.GET), new Request.Options());
+    Thread.sleep(100);
+
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void testOnlyGetHedged() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    Client delegate =
+        (request, options) -> {
+          calls.incrementAndGet();
+          awaitQuietly(new CountDownLatch(1), 100);
+          return response(request, 200, new AtomicBoolean());
+        };
+
+    new HedgingClient(delegate, CONFIG)
+        .execute(request(Request.HttpMethod.POST), new Request.Options());
+
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void testErrorFailsTheExchange() {
+    Client delegate =
+        (request, options) -> {
+          throw new AssertionError("delegate failed");
+        };
+
+    assertThrows(
+        AssertionError.class,
+        () ->
+            new HedgingClient(delegate, CONFIG)
+                .execute(request(Request.HttpMethod.GET), new Request.Options()));
+  }
+
+  @Test
+  public void testInvalidConfig() {
+    Client delegate = (request, options) -> null;
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new HedgingClient(delegate, HedgingClient.Config.builder().windowSize(0).build()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new HedgingClient(
+                delegate,
+                HedgingClient.Config.builder().windowSize(10).minimumSamples(20).build()));
+  }
+
+  @Test
+  public void testDelayFromPercentile() {
+    HedgingClient.LatencyWindow window = new HedgingClient.LatencyWindow(CONFIG);
+    assertEquals(Duration.ofMillis(50).toNanos(), window.delayNanos());
+
+    for (int i = 1; i <= 100; i++) {
+      window.record(Duration.ofMillis(i).toNanos());
+    }
+    window.refresh();
+
+    assertEquals(Duration.ofMillis(95).toNanos(), window.delayNanos());
+  }
+}
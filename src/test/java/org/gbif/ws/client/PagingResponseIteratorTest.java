@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.client;
+
+import org.gbif.api.model.common.paging.Pageable;
+import org.gbif.api.model.common.paging.PagingResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PagingResponseIteratorTest {
+
+  /**
+   * Pages over the numbers 0 to total - 1.
+   */
+  private static PagingResponse<Long> page(Pageable pageable, long total) {
+    long end = Math.min(total, pageable.getOffset() + pageable.getLimit());
+    List<Long> results =
+        LongStream.range(pageable.getOffset(), end)
+            .boxed()
+            .collect(Collectors.toList());
+    PagingResponse<Long> response = new PagingResponse<>(pageable, total, results);
+    response.setEndOfRecords(pageable.getOffset() + pageable.getLimit() >= total);
+    return response;
+  }
+
+  @Test
+  public void testAllRecordsInOrder() {
+    for (int prefetch = 0; prefetch <= 3; prefetch++) {
+      List<Long> requestedOffsets = Collections.synchronizedList(new ArrayList<>());
+      try (Stream<Long> records =
+          PagingResponseIterator.stream(
+              pageable -> {
+                requestedOffsets.add(pageable.getOffset());
+                return page(pageable, 25);
+              },
+              10,
+              prefetch)) {
+        assertEquals(
+            LongStream.range(0, 25).boxed().collect(Collectors.toList()),
+            records.collect(Collectors.toList()));
+      }
+      assertEquals(0L, requestedOffsets.get(0));
+    }
+  }
+
+  @Test
+  public void testEmptyFirstPage() {
+    PagingResponseIterator<Long> iterator =
+        new PagingResponseIterator<>(pageable -> page(pageable, 0), 10, 1);
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void testFetchErrorPropagated() {
+    PagingResponseIterator<Long> iterator =
+        new PagingResponseIterator<>(
+            pageable -> {
+              if (pageable.getOffset() > 0) {
+                throw new IllegalStateException("Service unavailable");
+              }
+              return page(pageable, 100);
+            },
+            10,
+            2);
+    for (int i = 0; i < 10; i++) {
+      iterator.next();
+    }
+    assertThrows(IllegalStateException.class, iterator::hasNext);
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.remoteauth;
+
+import org.gbif.ws.remoteauth.jwt.JwtAuthentication;
+import org.gbif.ws.remoteauth.jwt.JwtRemoteBasicAuthenticationProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AbstractRemoteAuthenticationProviderTest {
+
+  @Test
+  public void testConcurrentLoginsShareRemoteCall() throws Exception {
+    AtomicInteger remoteCalls = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    RemoteAuthClient remoteAuthClient =
+        (path, headers) -> {
+          remoteCalls.incrementAndGet();
+          try {
+            release.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return ResponseEntity.ok()
+              .header("token", "newToken")
+              .body("{\"userName\":\"user\",\"roles\":[\"USER\"]}");
+        };
+    JwtRemoteBasicAuthenticationProvider provider =
+        new JwtRemoteBasicAuthenticationProvider(remoteAuthClient);
+
+    ConcurrentLinkedQueue<Authentication> results = new ConcurrentLinkedQueue<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      Thread thread =
+          new Thread(() -> results.add(provider.authenticate(new JwtAuthentication("token"))));
+      threads.add(thread);
+      thread.start();
+    }
+
+    // wait until all logins are blocked on the remote call or on the in-flight one
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (threads.stream().anyMatch(t -> !isWaiting(t))
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    release.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(1, remoteCalls.get());
+    assertEquals(10, results.size());
+    assertTrue(results.stream().allMatch(a -> "user".equals(a.getName())));
+
+    // once completed a new call is made
+    provider.authenticate(new JwtAuthentication("token"));
+    assertEquals(2, remoteCalls.get());
+  }
+
+  @Test
+  public void testErrorReleasesConcurrentLogins() throws Exception {
+    AtomicInteger remoteCalls = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    RemoteAuthClient remoteAuthClient =
+        (path, headers) -> {
+          remoteCalls.incrementAndGet();
+          try {
+            release.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          throw new AssertionError("remote auth failed");
+        };
+    JwtRemoteBasicAuthenticationProvider provider =
+        new JwtRemoteBasicAuthenticationProvider(remoteAuthClient);
+
+    ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  provider.authenticate(new JwtAuthentication("token"));
+                } catch (Throwable e) {
+                  errors.add(e);
+                }
+              });
+      threads.add(thread);
+      thread.start();
+    }
+
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (threads.stream().anyMatch(t -> !isWaiting(t))
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    release.countDown();
+    for (Thread thread : threads) {
+      thread.join(10_000);
+      assertFalse(thread.isAlive());
+    }
+
+    assertEquals(1, remoteCalls.get());
+    assertEquals(5, errors.size());
+    assertTrue(errors.stream().allMatch(e -> e instanceof AssertionError));
+  }
+
+  private static boolean isWaiting(Thread thread) {
+    return thread.getState() == Thread.State.WAITING
+        || thread.getState() == Thread.State.TIMED_WAITING;
+  }
+}
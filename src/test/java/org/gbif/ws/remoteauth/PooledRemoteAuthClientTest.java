@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.remoteauth;
+
+import org.gbif.ws.client.ClientMetrics;
+
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.gbif.ws.remoteauth.LoginServerExtension.INVALID_USER;
+import static org.gbif.ws.remoteauth.LoginServerExtension.USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PooledRemoteAuthClientTest {
+
+  @RegisterExtension static LoginServerExtension loginServer = new LoginServerExtension();
+
+  private PooledRemoteAuthClient client;
+
+  @BeforeEach
+  public void setUp() {
+    client = PooledRemoteAuthClient.createInstance(loginServer.getWireMockServer().baseUrl());
+  }
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    client.close();
+  }
+
+  @Test
+  public void testRemoteAuth() {
+    ResponseEntity<String> response =
+        client.remoteAuth("/user/auth/jwt", bearer(USER.getJwtToken()));
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertTrue(response.getBody().contains(USER.getLoggedUser().getUserName()));
+    assertTrue(response.getHeaders().containsKey("token"));
+    assertThrows(
+        BadCredentialsException.class,
+        () -> client.remoteAuth("/user/auth/jwt", bearer(INVALID_USER.getJwtToken())));
+
+    assertEquals(2, client.getRequestCount());
+    assertEquals(1, client.getFailureCount());
+    // connections are kept in the pool
+    assertEquals(0, client.getPoolStats().getLeased());
+    assertEquals(1, client.getPoolStats().getAvailable());
+  }
+
+  @Test
+  public void testRemoteAuthAsync() throws Exception {
+    ResponseEntity<String> response =
+        client.remoteAuthAsync("/user/auth/jwt", bearer(USER.getJwtToken())).get();
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class,
+            () ->
+                client
+                    .remoteAuthAsync("/user/auth/jwt", bearer(INVALID_USER.getJwtToken()))
+                    .get());
+    assertInstanceOf(BadCredentialsException.class, e.getCause());
+  }
+
+  @Test
+  public void testMetrics() throws Exception {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    client.withMeterRegistry(registry);
+
+    client.remoteAuth("/user/auth/jwt", bearer(USER.getJwtToken()));
+    assertThrows(
+        BadCredentialsException.class,
+        () -> client.remoteAuth("/user/auth/jwt", bearer(INVALID_USER.getJwtToken())));
+
+    Timer ok =
+        registry
+            .get(ClientMetrics.REQUESTS)
+            .tag("client", "RemoteAuthClient")
+            .tag("method", "/user/auth/jwt")
+            .tag("status", "200")
+            .timer();
+    assertEquals(1, ok.count());
+    assertEquals(
+        2, registry.get(ClientMetrics.REQUESTS).timers().stream().mapToLong(Timer::count).sum());
+    assertEquals(1, registry.get(ClientMetrics.POOL + ".available").gauge().value());
+    assertEquals(0, registry.get(ClientMetrics.POOL + ".leased").gauge().value());
+
+    client.close();
+    assertTrue(Double.isNaN(registry.get(ClientMetrics.POOL + ".leased").gauge().value()));
+  }
+
+  private static HttpHeaders bearer(String token) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setBearerAuth(token);
+    return headers;
+  }
+}
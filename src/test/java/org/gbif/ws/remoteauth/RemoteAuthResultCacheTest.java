@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.remoteauth;
+
+import org.gbif.ws.remoteauth.basic.BasicRemoteAuthenticationProvider;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the remote authentication providers using a {@link RemoteAuthResultCache}.
+ */
+public class RemoteAuthResultCacheTest {
+
+  private RemoteAuthClient remoteAuthClient;
+  private BasicRemoteAuthenticationProvider provider;
+
+  @BeforeEach
+  public void setUp() {
+    remoteAuthClient = mock(RemoteAuthClient.class);
+    when(remoteAuthClient.remoteAuth(eq("/user/auth/basic"), argThat(h -> isUser(h, "secret"))))
+        .thenReturn(ResponseEntity.ok("{\"userName\":\"user\",\"roles\":[\"USER\"]}"));
+    when(remoteAuthClient.remoteAuth(eq("/user/auth/basic"), argThat(h -> isUser(h, "wrong"))))
+        .thenThrow(new BadCredentialsException("Wrong credentials for user"));
+
+    provider = new BasicRemoteAuthenticationProvider(remoteAuthClient);
+    provider.setResultCache(
+        new ExpiringRemoteAuthResultCache(10, Duration.ofMinutes(1), Duration.ofMinutes(1)));
+  }
+
+  @Test
+  public void testSuccessfulLoginCached() {
+    Authentication first = provider.authenticate(token("user", "secret"));
+    Authentication second = provider.authenticate(token("user", "secret"));
+
+    assertEquals("user", first.getName());
+    // the authentication itself is cached, so the response is not parsed again
+    assertSame(first, second);
+    verify(remoteAuthClient, times(1)).remoteAuth(any(), any());
+  }
+
+  @Test
+  public void testBadCredentialsCached() {
+    Authentication wrongPassword = token("user", "wrong");
+    assertThrows(BadCredentialsException.class, () -> provider.authenticate(wrongPassword));
+    assertThrows(BadCredentialsException.class, () -> provider.authenticate(wrongPassword));
+    verify(remoteAuthClient, times(1)).remoteAuth(any(), any());
+
+    // other credentials are not affected
+    assertEquals("user", provider.authenticate(token("user", "secret")).getName());
+  }
+
+  private static boolean isUser(HttpHeaders headers, String password) {
+    HttpHeaders expected = new HttpHeaders();
+    expected.setBasicAuth("user", password);
+    return headers != null
+        && expected
+            .getFirst(HttpHeaders.AUTHORIZATION)
+            .equals(headers.getFirst(HttpHeaders.AUTHORIZATION));
+  }
+
+  private static UsernamePasswordAuthenticationToken token(String username, String password) {
+    return new UsernamePasswordAuthenticationToken(username, password);
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.remoteauth.jwt;
+
+import org.gbif.ws.security.GbifAuthenticationToken;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.core.Authentication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LocalJwtAuthenticationProviderTest {
+
+  private static final String SECRET =
+      Base64.getEncoder()
+          .encodeToString("01234567890123456789012345678901".getBytes(StandardCharsets.UTF_8));
+  private static final String OTHER_SECRET =
+      Base64.getEncoder()
+          .encodeToString("abcdefghijabcdefghijabcdefghijab".getBytes(StandardCharsets.UTF_8));
+
+  @Test
+  public void testValidToken() {
+    LocalJwtAuthenticationProvider provider =
+        LocalJwtAuthenticationProvider.withSecret(SECRET, "GBIF-REGISTRY", null);
+    String token =
+        sign(
+            SECRET,
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}",
+            "{\"userName\":\"heinz\",\"roles\":[\"USER\"],\"iss\":\"GBIF-REGISTRY\",\"exp\":"
+                + inSeconds(3600)
+                + "}");
+
+    GbifAuthenticationToken authentication =
+        (GbifAuthenticationToken) provider.authenticate(new JwtAuthentication(token));
+
+    assertEquals("heinz", authentication.getName());
+    assertEquals("USER", authentication.getAuthorities().iterator().next().getAuthority());
+    assertEquals(token, authentication.getJwtToken());
+  }
+
+  @Test
+  public void testKeySet() {
+    LocalJwtAuthenticationProvider provider =
+        new LocalJwtAuthenticationProvider(Map.of("k1", SECRET, "k2", OTHER_SECRET), null, null);
+    String claims = "{\"sub\":\"heinz\",\"roles\":[],\"exp\":" + inSeconds(3600) + "}";
+
+    String withKid = sign(OTHER_SECRET, "{\"alg\":\"HS512\",\"kid\":\"k2\"}", claims);
+    String withoutKid = sign(OTHER_SECRET, "{\"alg\":\"HS384\"}", claims);
+    String wrongKid = sign(OTHER_SECRET, "{\"alg\":\"HS256\",\"kid\":\"k1\"}", claims);
+
+    assertEquals("heinz", provider.authenticate(new JwtAuthentication(withKid)).getName());
+    assertEquals("heinz", provider.authenticate(new JwtAuthentication(withoutKid)).getName());
+    assertThrows(
+        BadCredentialsException.class,
+        () -> provider.authenticate(new JwtAuthentication(wrongKid)));
+  }
+
+  @Test
+  public void testInvalidTokens() {
+    LocalJwtAuthenticationProvider provider =
+        LocalJwtAuthenticationProvider.withSecret(SECRET, "GBIF-REGISTRY", null);
+    String header = "{\"alg\":\"HS256\"}";
+    String claims = "{\"userName\":\"heinz\",\"roles\":[],\"iss\":\"GBIF-REGISTRY\",\"exp\":";
+
+    String expired = sign(SECRET, header, claims + inSeconds(-60) + "}");
+    String wrongSecret = sign(OTHER_SECRET, header, claims + inSeconds(60) + "}");
+    String wrongIssuer =
+        sign(SECRET, header, claims.replace("GBIF-REGISTRY", "x") + inSeconds(60) + "}");
+    String noAlgorithm = sign(SECRET, "{\"alg\":\"none\"}", claims + inSeconds(60) + "}");
+
+    assertThrows(
+        CredentialsExpiredException.class,
+        () -> provider.authenticate(new JwtAuthentication(expired)));
+    assertThrows(
+        BadCredentialsException.class,
+        () -> provider.authenticate(new JwtAuthentication(wrongSecret)));
+    assertThrows(
+        BadCredentialsException.class,
+        () -> provider.authenticate(new JwtAuthentication(wrongIssuer)));
+    assertThrows(
+        BadCredentialsException.class,
+        () -> provider.authenticate(new JwtAuthentication(noAlgorithm)));
+    assertThrows(
+        BadCredentialsException.class,
+        () -> provider.authenticate(new JwtAuthentication("not.a-token")));
+  }
+
+  @Test
+  public void testFallback() {
+    AuthenticationProvider fallback = mock(AuthenticationProvider.class);
+    LocalJwtAuthenticationProvider provider =
+        LocalJwtAuthenticationProvider.withSecret(SECRET, null, fallback);
+    // the registry doesn't include the roles in the tokens it issues
+    JwtAuthentication jwtAuthentication =
+        new JwtAuthentication(
+            sign(
+                SECRET,
+                "{\"alg\":\"HS256\"}",
+                "{\"userName\":\"heinz\",\"exp\":" + inSeconds(60) + "}"));
+    Authentication remoteAuthentication = mock(Authentication.class);
+    when(fallback.authenticate(jwtAuthentication)).thenReturn(remoteAuthentication);
+
+    assertSame(remoteAuthentication, provider.authenticate(jwtAuthentication));
+  }
+
+  private static long inSeconds(long seconds) {
+    return System.currentTimeMillis() / 1000 + seconds;
+  }
+
+  private static String sign(String secret, String header, String claims) {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    String content =
+        encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8))
+            + '.'
+            + encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+    String algorithm =
+        header.contains("HS512")
+            ? "HmacSHA512"
+            : header.contains("HS384") ? "HmacSHA384" : "HmacSHA256";
+    try {
+      Mac mac = Mac.getInstance(algorithm);
+      mac.init(new SecretKeySpec(Base64.getDecoder().decode(secret), algorithm));
+      return content
+          + '.'
+          + encoder.encodeToString(mac.doFinal(content.getBytes(StandardCharsets.US_ASCII)));
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
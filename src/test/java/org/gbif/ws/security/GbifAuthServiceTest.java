@@ -22,7 +22,7 @@ import java.nio.file.Paths;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
 
 import static org.gbif.ws.util.SecurityConstants.HEADER_CONTENT_MD5;
 import static org.gbif.ws.util.SecurityConstants.HEADER_GBIF_USER;
@@ -48,6 +48,11 @@ public class GbifAuthServiceTest {
   }
 
   public static GbifAuthService prepareGbifAuthService() throws Exception {
+    return prepareGbifAuthService(0);
+  }
+
+  private static GbifAuthServiceImpl prepareGbifAuthService(int signatureCacheMaxSize)
+      throws Exception {
     URL resource = GbifAuthServiceTest.class.getClassLoader().getResource("appkeys.properties");
     String stringPath = Paths.get(resource.toURI()).toAbsolutePath().toString();
 
@@ -58,68 +63,97 @@ public class GbifAuthServiceTest {
     return new GbifAuthServiceImpl(
         new AppKeySigningService(new FileSystemKeyStore(mockAppkeysConfiguration)),
         new Md5EncodeServiceImpl(JacksonJsonObjectMapperProvider.getObjectMapper()),
-        () -> APPKEY);
+        () -> APPKEY,
+        signatureCacheMaxSize,
+        60);
+  }
+
+  private GbifHttpServletRequestWrapper newPostRequest() {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", testUri.toString());
+    return new GbifHttpServletRequestWrapper(request, "Simsalabim", true);
   }
 
   @Test
   public void testSignRequest() {
     // given
-    GbifHttpServletRequestWrapper requestObjectMock = mock(GbifHttpServletRequestWrapper.class);
-    HttpHeaders headers = new HttpHeaders();
-    when(requestObjectMock.getRequestURI()).thenReturn(testUri.toString());
-    when(requestObjectMock.getHttpHeaders()).thenReturn(headers);
-    when(requestObjectMock.getMethod()).thenReturn("POST");
-    when(requestObjectMock.getContent()).thenReturn("Simsalabim");
+    GbifHttpServletRequestWrapper request = newPostRequest();
 
     // when
-    service.signRequest("heinz", requestObjectMock);
+    service.signRequest("heinz", request);
 
     // then
-    assertNotNull(headers.getFirst(HEADER_CONTENT_MD5));
-    assertEquals("heinz", headers.getFirst(HEADER_GBIF_USER));
-    assertNotNull(headers.getFirst(AUTHORIZATION));
-    assertTrue(headers.getFirst(AUTHORIZATION).startsWith("GBIF appKey:"));
+    assertNotNull(request.getHeader(HEADER_CONTENT_MD5));
+    assertEquals("heinz", request.getHeader(HEADER_GBIF_USER));
+    assertNotNull(request.getHeader(AUTHORIZATION));
+    assertTrue(request.getHeader(AUTHORIZATION).startsWith("GBIF appKey:"));
   }
 
   @Test
   public void testIsValid() {
     // given
-    GbifHttpServletRequestWrapper requestObjectMock = mock(GbifHttpServletRequestWrapper.class);
-    HttpHeaders headers = new HttpHeaders();
-    when(requestObjectMock.getRequestURI()).thenReturn(testUri.toString());
-    when(requestObjectMock.getHttpHeaders()).thenReturn(headers);
-    when(requestObjectMock.getMethod()).thenReturn("POST");
-    when(requestObjectMock.getContent()).thenReturn("Simsalabim");
-    when(requestObjectMock.getHeader(AUTHORIZATION)).thenCallRealMethod();
-    service.signRequest("heinz", requestObjectMock);
+    GbifHttpServletRequestWrapper request = newPostRequest();
+    service.signRequest("heinz", request);
 
     // when
-    boolean isRequestValidCorrectContentActual = service.isValidRequest(requestObjectMock);
-    headers.set(HEADER_CONTENT_MD5, "73");
-    boolean isRequestValidWrongContentActual = service.isValidRequest(requestObjectMock);
+    boolean isRequestValidCorrectContentActual = service.isValidRequest(request);
+    request.setHeader(HEADER_CONTENT_MD5, "73");
+    boolean isRequestValidWrongContentActual = service.isValidRequest(request);
 
     // then
     assertTrue(isRequestValidCorrectContentActual);
-    assertFalse(service.isValidRequest(requestObjectMock));
+    assertFalse(service.isValidRequest(request));
   }
 
   @Test
   public void testGetAppKeyFromRequest() {
     // given
-    GbifHttpServletRequestWrapper requestObjectMock = mock(GbifHttpServletRequestWrapper.class);
-    HttpHeaders headers = new HttpHeaders();
-    when(requestObjectMock.getRequestURI()).thenReturn(testUri.toString());
-    when(requestObjectMock.getHttpHeaders()).thenReturn(headers);
-    when(requestObjectMock.getMethod()).thenReturn("POST");
-    when(requestObjectMock.getContent()).thenReturn("Simsalabim");
-    when(requestObjectMock.getHeader(AUTHORIZATION)).thenCallRealMethod();
+    GbifHttpServletRequestWrapper request = newPostRequest();
 
     // when
-    service.signRequest("heinz", requestObjectMock);
+    service.signRequest("heinz", request);
     String actualAppKey =
-        GbifAuthUtils.getAppKeyFromRequest(requestObjectMock.getHeader(AUTHORIZATION));
+        GbifAuthUtils.getAppKeyFromRequest(request.getHeader(AUTHORIZATION));
 
     // then
     assertEquals(APPKEY, actualAppKey);
   }
+
+  @Test
+  public void testIsValidWithSignatureCache() throws Exception {
+    // given
+    GbifAuthServiceImpl cachingService = prepareGbifAuthService(10);
+    GbifHttpServletRequestWrapper request = newPostRequest();
+    cachingService.signRequest("heinz", request);
+
+    // when
+    boolean firstValid = cachingService.isValidRequest(request);
+    boolean secondValid = cachingService.isValidRequest(request);
+    request.setHeader(HEADER_CONTENT_MD5, "73");
+    boolean wrongContentValid = cachingService.isValidRequest(request);
+
+    // then
+    assertTrue(firstValid);
+    assertTrue(secondValid);
+    assertFalse(wrongContentValid);
+    assertEquals(1, cachingService.getSignatureCacheHitCount());
+    assertEquals(2, cachingService.getSignatureCacheMissCount());
+  }
+
+  @Test
+  public void testInvalidateCachedSignatures() throws Exception {
+    GbifAuthServiceImpl cachingService = prepareGbifAuthService(10);
+    GbifHttpServletRequestWrapper request = newPostRequest();
+    cachingService.signRequest("heinz", request);
+
+    assertTrue(cachingService.isValidRequest(request));
+    cachingService.invalidateCachedSignatures("otherKey");
+    assertTrue(cachingService.isValidRequest(request));
+    assertEquals(1, cachingService.getSignatureCacheHitCount());
+
+    // the signature is verified again once the entries of its key are removed
+    cachingService.invalidateCachedSignatures(APPKEY);
+    assertTrue(cachingService.isValidRequest(request));
+    assertEquals(1, cachingService.getSignatureCacheHitCount());
+    assertEquals(2, cachingService.getSignatureCacheMissCount());
+  }
 }
@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.security;
+
+import org.gbif.api.model.common.GbifUser;
+import org.gbif.api.service.common.IdentityAccessService;
+import org.gbif.api.vocabulary.UserRole;
+import org.gbif.ws.WebApplicationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+public class GbifAuthenticationManagerImplTest {
+
+  private IdentityAccessService identityAccessService;
+  private GbifAuthenticationManagerImpl authenticationManager;
+
+  @BeforeEach
+  public void setUp() {
+    GbifUser heinz = new GbifUser();
+    heinz.setUserName("heinz");
+    heinz.setEmail("heinz@gbif.org");
+    heinz.getRoles().add(UserRole.USER);
+
+    identityAccessService = mock(IdentityAccessService.class);
+    when(identityAccessService.authenticate("heinz", "secret")).thenReturn(heinz);
+    when(identityAccessService.authenticate("heinz@gbif.org", "secret")).thenReturn(heinz);
+    authenticationManager =
+        new GbifAuthenticationManagerImpl(identityAccessService, null, 10, 60);
+  }
+
+  @Test
+  public void testCachedBasicAuthentication() {
+    GbifAuthentication first = authenticationManager.authenticate(basicRequest("heinz", "secret"));
+    GbifAuthentication second = authenticationManager.authenticate(basicRequest("heinz", "secret"));
+
+    assertEquals("heinz", first.getName());
+    assertEquals("heinz", second.getName());
+    assertEquals(first.getAuthorities(), second.getAuthorities());
+    assertEquals(UserRole.USER.name(), second.getAuthorities().iterator().next().getAuthority());
+    verify(identityAccessService, times(1)).authenticate("heinz", "secret");
+  }
+
+  @Test
+  public void testWrongPasswordNotCached() {
+    authenticationManager.authenticate(basicRequest("heinz", "secret"));
+
+    assertThrows(
+        WebApplicationException.class,
+        () -> authenticationManager.authenticate(basicRequest("heinz", "wrong")));
+    assertThrows(
+        WebApplicationException.class,
+        () -> authenticationManager.authenticate(basicRequest("heinz", "wrong")));
+    verify(identityAccessService, times(2)).authenticate("heinz", "wrong");
+  }
+
+  @Test
+  public void testInvalidateCachedCredentials() {
+    authenticationManager.authenticate(basicRequest("heinz", "secret"));
+    authenticationManager.invalidateCachedCredentials("heinz");
+    authenticationManager.authenticate(basicRequest("heinz", "secret"));
+
+    verify(identityAccessService, times(2)).authenticate("heinz", "secret");
+  }
+
+  @Test
+  public void testInvalidateCachedCredentialsOfAnyLogin() {
+    // logged in with the email, invalidated with the user name
+    authenticationManager.authenticate(basicRequest("heinz@gbif.org", "secret"));
+    authenticationManager.invalidateCachedCredentials("heinz");
+    authenticationManager.authenticate(basicRequest("heinz@gbif.org", "secret"));
+    verify(identityAccessService, times(2)).authenticate("heinz@gbif.org", "secret");
+
+    // logged in with the user name, invalidated with the email
+    authenticationManager.authenticate(basicRequest("heinz", "secret"));
+    authenticationManager.invalidateCachedCredentials("Heinz@GBIF.org");
+    authenticationManager.authenticate(basicRequest("heinz", "secret"));
+    verify(identityAccessService, times(2)).authenticate("heinz", "secret");
+  }
+
+  private static HttpServletRequest basicRequest(String username, String password) {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    String credentials =
+        Base64.getEncoder()
+            .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    when(request.getHeader(AUTHORIZATION)).thenReturn("Basic " + credentials);
+    return request;
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SecretKeySigningServiceTest {
+
+  private final SigningService signingService = new SecretKeySigningService();
+
+  @Test
+  public void testBuildSignature() throws Exception {
+    RequestDataToSign data = requestData("/v1/dataset/ä", "heinz");
+
+    assertEquals(expectedSignature(data, "secret"), signingService.buildSignature(data, "secret"));
+    assertEquals(expectedSignature(data, "other"), signingService.buildSignature(data, "other"));
+    // the cached Mac of the first key must still be valid
+    assertEquals(expectedSignature(data, "secret"), signingService.buildSignature(data, "secret"));
+  }
+
+  @Test
+  public void testIsValidSignature() throws Exception {
+    RequestDataToSign data = requestData("/v1/dataset", "heinz");
+    String signature = expectedSignature(data, "secret");
+
+    assertTrue(signingService.isValidSignature(data, "secret", signature));
+    assertFalse(signingService.isValidSignature(data, "other", signature));
+    assertFalse(signingService.isValidSignature(data, "secret", null));
+    assertFalse(signingService.isValidSignature(data, "secret", signature.substring(1)));
+    assertFalse(
+        signingService.isValidSignature(requestData("/v1/dataset", "søren"), "secret", signature));
+  }
+
+  @Test
+  public void testConcurrentSigning() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        final RequestDataToSign data = requestData("/v1/occurrence/" + i, "user" + (i % 7));
+        final String key = "key" + (i % 3);
+        results.add(
+            executor.submit(
+                () -> expectedSignature(data, key).equals(signingService.buildSignature(data, key))));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static RequestDataToSign requestData(String url, String user) {
+    RequestDataToSign data = new RequestDataToSign();
+    data.setMethod("POST");
+    data.setUrl(url);
+    data.setContentType("Application/JSON");
+    data.setContentTypeMd5("LiFThEP4Pj2TODQXa/oFPg==");
+    data.setUser(user);
+    return data;
+  }
+
+  private static String expectedSignature(RequestDataToSign data, String secretKey)
+      throws Exception {
+    Mac mac = Mac.getInstance("HmacSHA1");
+    mac.init(new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "HmacSHA1"));
+    byte[] digest = mac.doFinal(data.stringToSign().getBytes(StandardCharsets.UTF_8));
+    return Base64.getEncoder().encodeToString(digest);
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GbifHttpServletRequestWrapperTest {
+
+  @Test
+  public void testHeadersView() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/occurrence/search");
+    request.addHeader(HttpHeaders.ACCEPT_LANGUAGE, "en");
+    request.addHeader("x-test", "a");
+    request.addHeader("x-test", "b");
+    GbifHttpServletRequestWrapper wrapper = new GbifHttpServletRequestWrapper(request);
+
+    HttpHeaders headers = wrapper.getHttpHeaders();
+    assertEquals("en", headers.getFirst("accept-language"));
+    assertEquals(Arrays.asList("a", "b"), headers.get("X-Test"));
+    assertTrue(headers.containsKey("X-TEST"));
+    assertFalse(headers.containsKey("x-missing"));
+    assertNull(headers.get("x-missing"));
+    assertThrows(UnsupportedOperationException.class, () -> headers.set("x-test", "c"));
+
+    // overrides are visible through the same view, the wrapped request is not modified
+    wrapper.overwriteLanguageHeader("es");
+    wrapper.addHeader("X-Test", "c");
+    wrapper.setHeader("x-new", "new");
+    assertEquals("es", headers.getFirst(HttpHeaders.ACCEPT_LANGUAGE));
+    assertEquals("es", wrapper.getHeader("Accept-Language"));
+    assertEquals(Arrays.asList("a", "b", "c"), headers.get("x-test"));
+    assertEquals("new", wrapper.getHeader("X-New"));
+    assertEquals("en", request.getHeader(HttpHeaders.ACCEPT_LANGUAGE));
+
+    List<String> names = Collections.list(wrapper.getHeaderNames());
+    assertEquals(3, names.size());
+    assertEquals(3, headers.size());
+  }
+
+  @Test
+  public void testContentReplayedInMemory() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/dataset");
+    request.setCharacterEncoding("UTF-8");
+    request.setContent("{\"title\":\"Flóra\"}".getBytes(StandardCharsets.UTF_8));
+    GbifHttpServletRequestWrapper wrapper = new GbifHttpServletRequestWrapper(request, true);
+
+    assertTrue(wrapper.getBody().isInMemory());
+    assertEquals("{\"title\":\"Flóra\"}", IOUtils.toString(wrapper.getReader()));
+    assertEquals("{\"title\":\"Flóra\"}", wrapper.getContent());
+    assertArrayEquals(
+        "{\"title\":\"Flóra\"}".getBytes(StandardCharsets.UTF_8),
+        IOUtils.toByteArray(wrapper.getInputStream()));
+  }
+
+  @Test
+  public void testLargeContentSpilledToDisk() throws Exception {
+    byte[] content = new byte[10_000];
+    Arrays.fill(content, (byte) 'a');
+    MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/dataset");
+    request.setContent(content);
+    GbifHttpServletRequestWrapper wrapper = new GbifHttpServletRequestWrapper(request, true, 1024);
+
+    ReplayableRequestBody body = wrapper.getBody();
+    assertFalse(body.isInMemory());
+    assertEquals(content.length, body.length());
+    assertArrayEquals(content, IOUtils.toByteArray(wrapper.getInputStream()));
+    assertArrayEquals(content, IOUtils.toByteArray(wrapper.getInputStream()));
+
+    wrapper.close();
+    assertThrows(IOException.class, body::openStream);
+  }
+}
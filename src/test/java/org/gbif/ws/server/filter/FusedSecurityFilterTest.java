@@ -0,0 +1,215 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.server.filter;
+
+import org.gbif.ws.remoteauth.jwt.JwtRequestFilter;
+import org.gbif.ws.security.GbifAuthenticationManager;
+import org.gbif.ws.security.GbifAuthenticationToken;
+import org.gbif.ws.server.GbifHttpServletRequestWrapper;
+import org.gbif.ws.util.SecurityConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import jakarta.servlet.Servlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests related to {@link FusedSecurityFilter}.
+ */
+public class FusedSecurityFilterTest {
+
+  /**
+   * Records the requests it is called for.
+   */
+  private static class RecordingAuthenticator implements RequestAuthenticator {
+
+    private final RequestAuthHeaders.Scheme scheme;
+    private final boolean accept;
+    private final List<RequestAuthHeaders> calls = new ArrayList<>();
+
+    RecordingAuthenticator(RequestAuthHeaders.Scheme scheme, boolean accept) {
+      this.scheme = scheme;
+      this.accept = accept;
+    }
+
+    @Override
+    public boolean supports(RequestAuthHeaders.Scheme scheme) {
+      return this.scheme == scheme;
+    }
+
+    @Override
+    public boolean authenticate(
+        HttpServletRequest request, HttpServletResponse response, RequestAuthHeaders headers) {
+      calls.add(headers);
+      if (!accept) {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+      }
+      return accept;
+    }
+  }
+
+  @Test
+  public void testParseHeaders() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader(HttpHeaders.AUTHORIZATION, SecurityConstants.GBIF_SCHEME_PREFIX + "app:sig");
+    request.addHeader(SecurityConstants.HEADER_GBIF_USER, "app");
+    request.addHeader(SecurityConstants.HEADER_CONTENT_MD5, "md5");
+
+    RequestAuthHeaders headers = RequestAuthHeaders.of(request);
+    assertEquals(RequestAuthHeaders.Scheme.GBIF, headers.getScheme());
+    assertEquals("app", headers.getAppKey());
+    assertEquals("app", headers.getGbifUser());
+    assertEquals("md5", headers.getContentMd5());
+    // parsed only once per request
+    assertSame(headers, RequestAuthHeaders.of(request));
+
+    MockHttpServletRequest bearer = new MockHttpServletRequest();
+    bearer.addHeader(HttpHeaders.AUTHORIZATION, "bearer  token ");
+    assertEquals(RequestAuthHeaders.Scheme.BEARER, RequestAuthHeaders.of(bearer).getScheme());
+    assertEquals("token", RequestAuthHeaders.of(bearer).getCredentials());
+
+    RequestAuthHeaders none = RequestAuthHeaders.of(new MockHttpServletRequest());
+    assertEquals(RequestAuthHeaders.Scheme.NONE, none.getScheme());
+    assertNull(none.getAppKey());
+  }
+
+  @Test
+  public void testDispatchByScheme() throws Exception {
+    RecordingAuthenticator basic =
+        new RecordingAuthenticator(RequestAuthHeaders.Scheme.BASIC, true);
+    RecordingAuthenticator jwt = new RecordingAuthenticator(RequestAuthHeaders.Scheme.BEARER, true);
+    FusedSecurityFilter filter =
+        new FusedSecurityFilter(new HttpServletRequestWrapperFilter(true), List.of(basic, jwt));
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/species/search");
+    request.addHeader(HttpHeaders.AUTHORIZATION, SecurityConstants.BEARER_SCHEME_PREFIX + "token");
+    request.setParameter("language", "ES");
+    MockFilterChain chain = new MockFilterChain();
+    filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+    assertEquals(0, basic.calls.size());
+    assertEquals(1, jwt.calls.size());
+    assertTrue(chain.getRequest() instanceof GbifHttpServletRequestWrapper);
+    assertEquals(
+        "es", ((HttpServletRequest) chain.getRequest()).getHeader(HttpHeaders.ACCEPT_LANGUAGE));
+  }
+
+  @Test
+  public void testRejectedRequestStopsChain() throws Exception {
+    RecordingAuthenticator basic =
+        new RecordingAuthenticator(RequestAuthHeaders.Scheme.BASIC, false);
+    FusedSecurityFilter filter =
+        new FusedSecurityFilter(new HttpServletRequestWrapperFilter(true), List.of(basic));
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/dataset");
+    request.addHeader(HttpHeaders.AUTHORIZATION, SecurityConstants.BASIC_SCHEME_PREFIX + "abc");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain();
+    filter.doFilter(request, response, chain);
+
+    assertEquals(1, basic.calls.size());
+    assertEquals(HttpServletResponse.SC_UNAUTHORIZED, response.getStatus());
+    assertNull(chain.getRequest());
+  }
+
+  @Test
+  public void testHeaderOverrideResetsParsedHeaders() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader(HttpHeaders.AUTHORIZATION, SecurityConstants.BASIC_SCHEME_PREFIX + "abc");
+    GbifHttpServletRequestWrapper wrapper = new GbifHttpServletRequestWrapper(request);
+    assertEquals(RequestAuthHeaders.Scheme.BASIC, RequestAuthHeaders.of(wrapper).getScheme());
+
+    // e.g. signing the request rewrites the Authorization header
+    wrapper.setHeader(HttpHeaders.AUTHORIZATION, SecurityConstants.GBIF_SCHEME_PREFIX + "app:sig");
+    assertEquals(RequestAuthHeaders.Scheme.GBIF, RequestAuthHeaders.of(wrapper).getScheme());
+  }
+
+  @Test
+  public void testIdentityFilterUsesParsedHeaders() throws Exception {
+    GbifAuthenticationManager authenticationManager = mock(GbifAuthenticationManager.class);
+    when(authenticationManager.authenticate(any(), any()))
+        .thenReturn(GbifAuthenticationToken.anonymous());
+    IdentityFilter identityFilter = new IdentityFilter(authenticationManager);
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/dataset");
+    request.addHeader(HttpHeaders.AUTHORIZATION, SecurityConstants.BASIC_SCHEME_PREFIX + "abc");
+    RequestAuthHeaders headers = RequestAuthHeaders.of(request);
+    assertTrue(identityFilter.authenticate(request, new MockHttpServletResponse(), headers));
+
+    verify(authenticationManager).authenticate(same(request), same(headers));
+  }
+
+  @Test
+  public void testRegisteredDelegatesSkipped() throws Exception {
+    GbifAuthenticationManager authenticationManager = mock(GbifAuthenticationManager.class);
+    when(authenticationManager.authenticate(any(), any()))
+        .thenReturn(GbifAuthenticationToken.anonymous());
+    // the @Component filter is registered in the servlet container too
+    IdentityFilter identityFilter = new IdentityFilter(authenticationManager);
+    identityFilter.init(new MockFilterConfig("identityFilter"));
+    FusedSecurityFilter filter =
+        new FusedSecurityFilter(new HttpServletRequestWrapperFilter(true), List.of(identityFilter));
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/dataset");
+    request.addHeader(HttpHeaders.AUTHORIZATION, SecurityConstants.BASIC_SCHEME_PREFIX + "abc");
+    MockFilterChain chain = new MockFilterChain(mock(Servlet.class), identityFilter);
+    try {
+      filter.doFilter(request, new MockHttpServletResponse(), chain);
+    } finally {
+      SecurityContextHolder.clearContext();
+    }
+
+    verify(authenticationManager, times(1)).authenticate(any(), any());
+    assertNull(request.getAttribute("identityFilter" + IdentityFilter.ALREADY_FILTERED_SUFFIX));
+  }
+
+  @Test
+  public void testJwtSchemes() {
+    JwtRequestFilter jwtFilter = new JwtRequestFilter(null);
+    assertTrue(jwtFilter.supports(RequestAuthHeaders.Scheme.BEARER));
+    assertTrue(jwtFilter.supports(RequestAuthHeaders.Scheme.OTHER));
+    assertFalse(jwtFilter.supports(RequestAuthHeaders.Scheme.BASIC));
+    assertFalse(jwtFilter.supports(RequestAuthHeaders.Scheme.GBIF));
+    assertFalse(jwtFilter.supports(RequestAuthHeaders.Scheme.NONE));
+
+    // standalone, credentials of other schemes are never taken for a token
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader(HttpHeaders.AUTHORIZATION, SecurityConstants.BASIC_SCHEME_PREFIX + "bearer");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertTrue(jwtFilter.authenticate(request, response, RequestAuthHeaders.of(request)));
+    assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.server.filter;
+
+import org.gbif.ws.server.GbifHttpServletRequestWrapper;
+import org.gbif.ws.util.SecurityConstants;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.ServletRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests related to {@link HttpServletRequestWrapperFilter}.
+ */
+public class HttpServletRequestWrapperFilterTest {
+
+  private static ServletRequest filter(
+      HttpServletRequestWrapperFilter filter, MockHttpServletRequest request) throws Exception {
+    MockFilterChain chain = new MockFilterChain();
+    filter.doFilter(request, new MockHttpServletResponse(), chain);
+    return chain.getRequest();
+  }
+
+  private static MockHttpServletRequest post(String uri, String contentType) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+    request.setContentType(contentType);
+    request.setContent("{\"q\":\"puma\"}".getBytes());
+    return request;
+  }
+
+  @Test
+  public void testSignedRequestIsBuffered() throws Exception {
+    MockHttpServletRequest request = post("/occurrence/download/request", "application/json");
+    request.addHeader(HttpHeaders.AUTHORIZATION, SecurityConstants.GBIF_SCHEME_PREFIX + "app:sig");
+    request.addHeader(SecurityConstants.HEADER_CONTENT_MD5, "md5");
+
+    ServletRequest filtered = filter(new HttpServletRequestWrapperFilter(true), request);
+    assertTrue(filtered instanceof GbifHttpServletRequestWrapper);
+    assertEquals("{\"q\":\"puma\"}", ((GbifHttpServletRequestWrapper) filtered).getContent());
+  }
+
+  @Test
+  public void testUnsignedRequestPassesThrough() throws Exception {
+    MockHttpServletRequest request = post("/occurrence/download/request", "application/json");
+    request.addHeader(HttpHeaders.AUTHORIZATION, SecurityConstants.BEARER_SCHEME_PREFIX + "token");
+
+    assertSame(request, filter(new HttpServletRequestWrapperFilter(true), request));
+  }
+
+  @Test
+  public void testWrapContentDisabled() throws Exception {
+    MockHttpServletRequest request = post("/dataset", "application/json");
+    request.addHeader(HttpHeaders.AUTHORIZATION, SecurityConstants.GBIF_SCHEME_PREFIX + "app:sig");
+    request.addHeader(SecurityConstants.HEADER_CONTENT_MD5, "md5");
+
+    assertSame(request, filter(new HttpServletRequestWrapperFilter(false), request));
+  }
+
+  @Test
+  public void testPathAndContentTypeRules() throws Exception {
+    HttpServletRequestWrapperFilter filter =
+        new HttpServletRequestWrapperFilter(
+            true, 1024, new String[] {"/dataset/**"}, new String[] {"application/json"});
+
+    assertTrue(
+        filter(filter, post("/dataset/1/endpoint", "application/json;charset=UTF-8"))
+            instanceof GbifHttpServletRequestWrapper);
+
+    MockHttpServletRequest otherPath = post("/occurrence/search", "application/json");
+    assertSame(otherPath, filter(filter, otherPath));
+
+    MockHttpServletRequest otherType = post("/dataset/1/endpoint", "text/plain");
+    assertSame(otherType, filter(filter, otherType));
+  }
+}
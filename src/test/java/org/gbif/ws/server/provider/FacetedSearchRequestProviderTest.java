@@ -1,5 +1,7 @@
 package org.gbif.ws.server.provider;
 
+import org.gbif.api.model.registry.search.DatasetSearchParameter;
+
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
@@ -42,4 +44,30 @@ class FacetedSearchRequestProviderTest {
     val = FacetedSearchRequestProvider.getFirstIgnoringCase("FACETMINCOUNT", params);
     assertEquals("100", val);
   }
-}
\ No newline at end of file
+
+  @Test
+  void findSearchParam() {
+    DatasetSearchRequestHandlerMethodArgumentResolver provider =
+        new DatasetSearchRequestHandlerMethodArgumentResolver();
+
+    // indexed spellings: exact, lower, upper and camel case
+    assertEquals(
+        DatasetSearchParameter.PUBLISHING_COUNTRY, provider.findSearchParam("PUBLISHING_COUNTRY"));
+    assertEquals(
+        DatasetSearchParameter.PUBLISHING_COUNTRY, provider.findSearchParam("publishing_country"));
+    assertEquals(
+        DatasetSearchParameter.PUBLISHING_COUNTRY, provider.findSearchParam("publishingCountry"));
+
+    // other spellings are normalised
+    assertEquals(
+        DatasetSearchParameter.PUBLISHING_COUNTRY, provider.findSearchParam("publishingcountry"));
+    assertEquals(
+        DatasetSearchParameter.PUBLISHING_COUNTRY, provider.findSearchParam("Publishing-Country"));
+    assertEquals(
+        DatasetSearchParameter.PUBLISHING_COUNTRY, provider.findSearchParam("publishing.country"));
+
+    assertNull(provider.findSearchParam("publishing_countries"));
+    assertNull(provider.findSearchParam(""));
+    assertNull(provider.findSearchParam(null));
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.server.provider;
+
+import org.gbif.api.model.common.paging.Pageable;
+import org.gbif.ws.WebApplicationException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PagingCursorCodecTest {
+
+  private final PagingCursorCodec codec = new PagingCursorCodec("secret");
+
+  @Test
+  void encodeDecode() {
+    String cursor = codec.encode("[1625097600000,\"a2c4\"]");
+    assertEquals("[1625097600000,\"a2c4\"]", codec.decode(cursor));
+    assertNull(codec.decode(PagingCursorCodec.FIRST_PAGE));
+  }
+
+  @Test
+  void tamperedCursor() {
+    String cursor = codec.encode("100");
+    String forged = new PagingCursorCodec("other").encode("200");
+    String tampered =
+        forged.substring(0, forged.indexOf('.')) + cursor.substring(cursor.indexOf('.'));
+
+    assertThrows(WebApplicationException.class, () -> codec.decode(forged));
+    assertThrows(WebApplicationException.class, () -> codec.decode(tampered));
+    assertThrows(WebApplicationException.class, () -> codec.decode("garbage"));
+    assertThrows(WebApplicationException.class, () -> codec.decode("!!.??"));
+  }
+
+  @Test
+  void nextCursor() {
+    CursorPagingRequest request = new CursorPagingRequest(null, 2);
+    assertEquals(
+        "b", codec.decode(codec.nextCursor(request, Arrays.asList("a", "b"), Function.identity())));
+    assertNull(codec.nextCursor(request, Collections.singletonList("a"), Function.identity()));
+  }
+
+  @Test
+  void resolveCursorPage() {
+    PageableProvider provider = new PageableProvider(1000, codec);
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/occurrence/search");
+    request.addParameter(PagingCursorCodec.PARAM_CURSOR, codec.encode("42"));
+    request.addParameter("limit", "50");
+    Pageable page = provider.getValue(new ServletWebRequest(request));
+    assertTrue(page instanceof CursorPagingRequest);
+    assertEquals("42", ((CursorPagingRequest) page).getSearchAfter());
+    assertEquals(50, page.getLimit());
+    assertEquals(0, page.getOffset());
+
+    MockHttpServletRequest offsetRequest = new MockHttpServletRequest("GET", "/occurrence/search");
+    offsetRequest.addParameter("offset", "20");
+    Pageable offsetPage = provider.getValue(new ServletWebRequest(offsetRequest));
+    assertFalse(offsetPage instanceof CursorPagingRequest);
+    assertEquals(20, offsetPage.getOffset());
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.server.provider;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RequestParameterIndexTest {
+
+  @Test
+  void sharedPerRequest() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/occurrence/search");
+    request.addParameter("Facet.Limit", "5");
+    request.addParameter("limit", "20");
+    request.addParameter("empty", "");
+    ServletWebRequest webRequest = new ServletWebRequest(request);
+
+    RequestParameterIndex index = RequestParameterIndex.of(webRequest);
+    assertSame(index, RequestParameterIndex.of(webRequest));
+
+    assertEquals("5", index.getFirstIgnoringCase("facet.limit"));
+    assertEquals("5", index.getFirstIgnoringCase("FACET.LIMIT"));
+    assertNull(index.getFirst("facet.limit"));
+    assertEquals("20", index.getFirst("limit"));
+    assertNull(index.getFirstIgnoringCase("EMPTY"));
+    assertNull(index.getFirstIgnoringCase("missing"));
+
+    assertEquals(20, PageableProvider.getPagingRequest(webRequest, 1000).getLimit());
+  }
+
+  @Test
+  void caseOrder() {
+    Map<String, String[]> params = new LinkedHashMap<>();
+    params.put("faCet", new String[] {"mixed"});
+    params.put("FACET", new String[] {"upper"});
+    params.put("facet", new String[] {"lower"});
+    params.put("Limit", new String[] {""});
+    params.put("lImit", new String[] {"10"});
+
+    RequestParameterIndex index = new RequestParameterIndex(params);
+    // exact match first, then lower case, upper case and any other case
+    assertEquals("mixed", index.getFirstIgnoringCase("faCet"));
+    assertEquals("lower", index.getFirstIgnoringCase("Facet"));
+    assertEquals("10", index.getFirstIgnoringCase("LIMIT"));
+
+    // the single lookup without index gives the same values
+    assertEquals("mixed", RequestParameterIndex.getFirstIgnoringCase(params, "faCet"));
+    assertEquals("lower", RequestParameterIndex.getFirstIgnoringCase(params, "Facet"));
+    assertEquals("10", RequestParameterIndex.getFirstIgnoringCase(params, "LIMIT"));
+    assertNull(RequestParameterIndex.getFirstIgnoringCase(params, "offset"));
+
+    params.remove("facet");
+    assertEquals("upper", new RequestParameterIndex(params).getFirstIgnoringCase("Facet"));
+    assertEquals("upper", RequestParameterIndex.getFirstIgnoringCase(params, "Facet"));
+  }
+}
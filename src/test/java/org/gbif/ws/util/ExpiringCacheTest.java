@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.ws.util;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ExpiringCacheTest {
+
+  private long now = 0;
+
+  private final ExpiringCache<String, String> cache =
+      new ExpiringCache<String, String>(2, Duration.ofSeconds(10)) {
+        @Override
+        protected long currentTimeMillis() {
+          return now;
+        }
+      };
+
+  @Test
+  public void testExpiration() {
+    cache.put("a", "A");
+    cache.put("b", "B", Duration.ofSeconds(1));
+
+    now = 999;
+    assertEquals("A", cache.get("a"));
+    assertEquals("B", cache.get("b"));
+
+    now = 1000;
+    assertEquals("A", cache.get("a"));
+    assertNull(cache.get("b"));
+
+    now = 10_000;
+    assertNull(cache.get("a"));
+    assertEquals(3, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  public void testMaxSize() {
+    cache.put("a", "A");
+    cache.put("b", "B");
+    cache.put("a", "A2");
+    cache.put("c", "C");
+
+    assertEquals(2, cache.size());
+    assertNull(cache.get("b"));
+    assertEquals("A2", cache.get("a"));
+    assertEquals("C", cache.get("c"));
+  }
+
+  @Test
+  public void testInvalidate() {
+    cache.put("a", "A");
+    cache.put("b", "B");
+
+    cache.invalidate("a");
+    assertNull(cache.get("a"));
+    assertEquals("B", cache.get("b"));
+
+    cache.invalidateAll();
+    assertEquals(0, cache.size());
+  }
+}